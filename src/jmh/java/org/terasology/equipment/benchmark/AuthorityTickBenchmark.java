@@ -0,0 +1,128 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentEffectKeys;
+import org.terasology.equipment.component.EquipmentEffectsListComponent;
+import org.terasology.equipment.system.EquipmentEffectsAuthoritySystem;
+import org.terasology.equipment.system.EquipmentItemIds;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures EquipmentEffectsAuthoritySystem.update with 'entities' characters, each wearing one item with a finite
+ * regeneration effect from the module's prefabs.
+ *
+ * In "idleTick" none of the effects are due, which is what almost every tick looks like. In "expiringTick" the
+ * effects of every character run out in the same tick, and are put back before the next invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthorityTickBenchmark {
+    /** How far (in milliseconds) the clock moves between ticks, so that every tick does its check. */
+    private static final long TICK = 100;
+
+    /**
+     * The characters and their effects.
+     */
+    public abstract static class Characters {
+        @Param({"100", "1000", "10000"})
+        public int entities;
+
+        EquipmentBenchmarkEnvironment environment;
+        EquipmentEffectsAuthoritySystem authority;
+        final List<EntityRef> characters = new ArrayList<>();
+        final List<EquipmentEffectComponent> characterEffects = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void createCharacters() {
+            environment = new EquipmentBenchmarkEnvironment();
+            authority = environment.getAuthority();
+            BenchmarkEntityManager entityManager = environment.getEntities();
+            String ring = environment.getFixtures().getEffectItemNames().stream()
+                    .filter(name -> name.contains("Healing"))
+                    .findFirst()
+                    .orElse(environment.getFixtures().getEffectItemNames().get(0));
+
+            for (int i = 0; i < entities; i++) {
+                EntityRef item = environment.getFixtures().createItem(entityManager, ring);
+                for (Component component : item.iterateComponents()) {
+                    if (component instanceof EquipmentEffectComponent) {
+                        EquipmentEffectComponent eec = (EquipmentEffectComponent) component;
+                        eec.effectID = EquipmentItemIds.of(item);
+                        characterEffects.add(eec);
+                        characters.add(entityManager.create(new EquipmentEffectsListComponent()));
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Puts every effect back into its character's list, expiring at the given time, and schedules it.
+         *
+         * @param expiresAt the game time at which the effects expire
+         */
+        void schedule(long expiresAt) {
+            for (int i = 0; i < characters.size(); i++) {
+                EntityRef character = characters.get(i);
+                EquipmentEffectComponent eec = characterEffects.get(i);
+                eec.duration = (int) Math.min(Integer.MAX_VALUE, expiresAt - environment.getGameTimeInMs());
+                eec.expiresAt = expiresAt;
+
+                EquipmentEffectsListComponent effectsList = character.getComponent(EquipmentEffectsListComponent.class);
+                effectsList.getOrCreateEffectsOfType(EquipmentEffectKeys.keyOf(eec.getClass(), eec.id))
+                        .put(eec.effectID, eec);
+                authority.onEffectsListActivated(null, character, effectsList);
+            }
+        }
+    }
+
+    /**
+     * Characters whose effects don't run out during the benchmark.
+     */
+    @State(Scope.Thread)
+    public static class Lasting extends Characters {
+        @Setup(Level.Trial)
+        public void scheduleEffects() {
+            schedule(Long.MAX_VALUE / 2);
+        }
+    }
+
+    /**
+     * Characters whose effects all run out at the next tick.
+     */
+    @State(Scope.Thread)
+    public static class Expiring extends Characters {
+        @Setup(Level.Invocation)
+        public void scheduleEffects() {
+            schedule(environment.getGameTimeInMs() + 1);
+        }
+    }
+
+    @Benchmark
+    public void idleTick(Lasting state) {
+        state.environment.advance(TICK);
+        state.authority.update(TICK / 1000f);
+    }
+
+    @Benchmark
+    public void expiringTick(Expiring state) {
+        state.environment.advance(TICK);
+        state.authority.update(TICK / 1000f);
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Creates the in-memory entities of the benchmarks, and stands in for the engine's EntityManager and event system.
+ *
+ * Only the handlers registered through {@link #on(Class, BiConsumer)} receive events, so each benchmark decides which
+ * systems take part in it. The EntityManager returned by {@link #asEntityManager()} only supports looking entities up
+ * by id and counting them, which is all the equipment systems do on their hot paths.
+ */
+public class BenchmarkEntityManager {
+    private final Map<Long, BenchmarkEntityRef> entities = new HashMap<>();
+    private final Map<Class<?>, List<BiConsumer<Event, EntityRef>>> handlers = new HashMap<>();
+    private long nextId = 1;
+
+    /**
+     * Creates an entity with the given components.
+     *
+     * @param components the components of the entity
+     * @return the new entity
+     */
+    public BenchmarkEntityRef create(Component... components) {
+        return createFromPrefab(null, components);
+    }
+
+    /**
+     * Creates an entity from a prefab. The components are given separately, as each entity needs its own copies.
+     *
+     * @param parentPrefab the prefab the entity is created from, or null if there is none
+     * @param components   the components of the entity
+     * @return the new entity
+     */
+    public BenchmarkEntityRef createFromPrefab(Prefab parentPrefab, Component... components) {
+        BenchmarkEntityRef entity = new BenchmarkEntityRef(this, nextId++, parentPrefab);
+        for (Component component : components) {
+            entity.addComponent(component);
+        }
+        entities.put(entity.getId(), entity);
+        return entity;
+    }
+
+    /**
+     * Registers a handler for events of the given type, sent to any entity.
+     *
+     * @param eventType the type of the events
+     * @param handler   receives the event and the entity it was sent to
+     * @param <E>       the type of the events
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Event> void on(Class<E> eventType, BiConsumer<E, EntityRef> handler) {
+        handlers.computeIfAbsent(eventType, type -> new ArrayList<>()).add((BiConsumer<Event, EntityRef>) handler);
+    }
+
+    /**
+     * @return the number of entities that exist
+     */
+    public int count() {
+        return entities.size();
+    }
+
+    /**
+     * Returns an EntityManager that looks entities up in this manager.
+     *
+     * @return the EntityManager stand-in
+     */
+    public EntityManager asEntityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getEntity":
+                            BenchmarkEntityRef entity = entities.get((Long) args[0]);
+                            return entity == null ? EntityRef.NULL : entity;
+                        case "getActiveEntityCount":
+                        case "getCountOfEntities":
+                            return entities.size();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "BenchmarkEntityManager";
+                        default:
+                            throw new UnsupportedOperationException("Not available in the benchmarks: " + method);
+                    }
+                });
+    }
+
+    <E extends Event> E dispatch(EntityRef entity, E event) {
+        List<BiConsumer<Event, EntityRef>> eventHandlers = handlers.get(event.getClass());
+        if (eventHandlers != null) {
+            for (BiConsumer<Event, EntityRef> handler : eventHandlers) {
+                handler.accept(event, entity);
+            }
+        }
+        return event;
+    }
+
+    void forget(BenchmarkEntityRef entity) {
+        entities.remove(entity.getId());
+    }
+}
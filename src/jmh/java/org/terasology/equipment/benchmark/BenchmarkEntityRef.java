@@ -0,0 +1,166 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory entity for the benchmarks. Components are kept in a plain map, and sent events are handed to the
+ * handlers registered with the {@link BenchmarkEntityManager} that created the entity.
+ */
+public class BenchmarkEntityRef extends EntityRef {
+    private final BenchmarkEntityManager manager;
+    private final long id;
+    private final Prefab parentPrefab;
+    private final Map<Class<?>, Component> components = new HashMap<>();
+    private boolean exists = true;
+    private boolean persistent = true;
+    private boolean alwaysRelevant;
+    private EntityRef owner = EntityRef.NULL;
+
+    BenchmarkEntityRef(BenchmarkEntityManager manager, long id, Prefab parentPrefab) {
+        this.manager = manager;
+        this.id = id;
+        this.parentPrefab = parentPrefab;
+    }
+
+    @Override
+    public boolean exists() {
+        return exists;
+    }
+
+    @Override
+    public boolean isActive() {
+        return exists;
+    }
+
+    @Override
+    public void destroy() {
+        exists = false;
+        components.clear();
+        manager.forget(this);
+    }
+
+    @Override
+    public <T extends Event> T send(T event) {
+        return manager.dispatch(this, event);
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    @Override
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    @Override
+    public boolean isAlwaysRelevant() {
+        return alwaysRelevant;
+    }
+
+    @Override
+    public void setAlwaysRelevant(boolean alwaysRelevant) {
+        this.alwaysRelevant = alwaysRelevant;
+    }
+
+    @Override
+    public EntityRef getOwner() {
+        return owner;
+    }
+
+    @Override
+    public void setOwner(EntityRef owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public Prefab getParentPrefab() {
+        return parentPrefab;
+    }
+
+    @Override
+    public String toFullDescription() {
+        return "BenchmarkEntity" + id + components.keySet();
+    }
+
+    @Override
+    public boolean hasComponent(Class<? extends Component> component) {
+        return components.containsKey(component);
+    }
+
+    @Override
+    public boolean hasAnyComponents(List<Class<? extends Component>> filterComponents) {
+        for (Class<? extends Component> component : filterComponents) {
+            if (components.containsKey(component)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasAllComponents(List<Class<? extends Component>> filterComponents) {
+        for (Class<? extends Component> component : filterComponents) {
+            if (!components.containsKey(component)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public <T extends Component> T getComponent(Class<T> componentClass) {
+        return componentClass.cast(components.get(componentClass));
+    }
+
+    @Override
+    public <T extends Component> T addComponent(T component) {
+        components.put(component.getClass(), component);
+        return component;
+    }
+
+    @Override
+    public void removeComponent(Class<? extends Component> componentClass) {
+        components.remove(componentClass);
+    }
+
+    @Override
+    public void saveComponent(Component component) {
+        components.put(component.getClass(), component);
+    }
+
+    @Override
+    public Iterable<Component> iterateComponents() {
+        return components.values();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "BenchmarkEntity" + id;
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.ui.CharacterScreenWindow;
+import org.terasology.nui.widgets.UILabel;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CharacterScreenWindow.updateStats for a character wearing a full set of equipment from the module's
+ * prefabs. The window's labels are created directly instead of being loaded from its UI layout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CharacterScreenBenchmark {
+    private CharacterScreenWindow window;
+
+    @Setup
+    public void createWindow() throws ReflectiveOperationException {
+        EquipmentBenchmarkEnvironment environment = new EquipmentBenchmarkEnvironment();
+        BenchmarkEntityManager entities = environment.getEntities();
+        EntityRef character = environment.getFixtures().createCharacter(entities);
+        environment.getFixtures().fillSlots(entities, character, false);
+
+        window = new CharacterScreenWindow();
+        for (Field field : CharacterScreenWindow.class.getDeclaredFields()) {
+            if (field.getType() == UILabel.class) {
+                EquipmentBenchmarkEnvironment.write(window, field, new UILabel());
+            }
+        }
+
+        List<UILabel> slotLabels = new ArrayList<>();
+        for (int i = 0; i < character.getComponent(EquipmentComponent.class).numberOfSlots; i++) {
+            slotLabels.add(new UILabel());
+        }
+        EquipmentBenchmarkEnvironment.write(window, CharacterScreenWindow.class.getDeclaredField("eqSlotLabels"),
+                slotLabels);
+        EquipmentBenchmarkEnvironment.write(window, CharacterScreenWindow.class.getDeclaredField("player"),
+                character);
+    }
+
+    @Benchmark
+    public CharacterScreenWindow updateStats() {
+        window.updateStats();
+        return window;
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.equipment.system.EquipmentSystem;
+import org.terasology.module.health.events.BeforeDamagedEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the two BeforeDamagedEvent handlers of the EquipmentSystem, which add the attack of the attacker's
+ * equipment and subtract the defense of the target's equipment on every hit. Both characters wear a full set of
+ * equipment from the module's prefabs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DamageBenchmark {
+    @Param({"engine:physicalDamage", "Equipment:swordDamage"})
+    public String damageType;
+
+    private EquipmentSystem equipment;
+    private EntityRef attacker;
+    private EntityRef target;
+    private Prefab damageTypePrefab;
+
+    @Setup
+    public void createCharacters() {
+        EquipmentBenchmarkEnvironment environment = new EquipmentBenchmarkEnvironment();
+        BenchmarkEntityManager entities = environment.getEntities();
+        equipment = environment.getEquipment();
+
+        attacker = environment.getFixtures().createCharacter(entities);
+        environment.getFixtures().fillSlots(entities, attacker, false);
+        target = environment.getFixtures().createCharacter(entities);
+        environment.getFixtures().fillSlots(entities, target, false);
+        damageTypePrefab = environment.getDamageType(damageType);
+    }
+
+    @Benchmark
+    public BeforeDamagedEvent doingDamage() {
+        BeforeDamagedEvent event = new BeforeDamagedEvent(10, damageTypePrefab, attacker, EntityRef.NULL);
+        equipment.doingDamage(event, target);
+        return event;
+    }
+
+    @Benchmark
+    public BeforeDamagedEvent takingDamage() {
+        BeforeDamagedEvent event = new BeforeDamagedEvent(10, damageTypePrefab, attacker, EntityRef.NULL);
+        equipment.takingDamage(event, target);
+        return event;
+    }
+}
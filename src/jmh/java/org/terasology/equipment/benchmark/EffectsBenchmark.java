@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terasology.alterationEffects.AlterationEffect;
+import org.terasology.alterationEffects.AlterationEffects;
+import org.terasology.alterationEffects.OnEffectModifyEvent;
+import org.terasology.alterationEffects.regenerate.RegenerationAlterationEffect;
+import org.terasology.alterationEffects.resist.ResistDamageAlterationEffect;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentEffectKeys;
+import org.terasology.equipment.component.EquipmentEffectsListComponent;
+import org.terasology.equipment.system.EquipmentEffectsSystem;
+import org.terasology.equipment.system.EquipmentItemIds;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures EquipmentEffectsSystem.onEquipmentEffectApplied, which adds the combined equipment effects of a character
+ * to every alteration effect applied to it. The "combine" benchmarks drop the cached combinations first, so they
+ * measure combining the effects from scratch: through combineEffectValues for resistances, and by rebuilding the
+ * running aggregate for other effects.
+ *
+ * The character has 'contributors' items with equipment effects, taken in turn from the module's prefabs that have
+ * regeneration or resistance effects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EffectsBenchmark {
+    @Param({"1", "8", "64"})
+    public int contributors;
+
+    private EquipmentBenchmarkEnvironment environment;
+    private EquipmentEffectsSystem effects;
+    private EntityRef character;
+    private AlterationEffect regeneration;
+    private AlterationEffect resistance;
+
+    @Setup
+    public void createCharacter() {
+        environment = new EquipmentBenchmarkEnvironment();
+        BenchmarkEntityManager entities = environment.getEntities();
+        effects = environment.getEffects();
+        regeneration = new RegenerationAlterationEffect(environment.getContext());
+        resistance = new ResistDamageAlterationEffect(environment.getContext());
+
+        // Fill the list of equipment effects the way EquipmentEffectsSystem.onEquip does, without applying the
+        // alteration effects themselves.
+        EquipmentEffectsListComponent effectsList = new EquipmentEffectsListComponent();
+        List<String> effectItems = environment.getFixtures().getEffectItemNames();
+        for (int i = 0; i < contributors; i++) {
+            EntityRef item = environment.getFixtures().createItem(entities, effectItems.get(i % effectItems.size()));
+            for (Component component : item.iterateComponents()) {
+                if (component instanceof EquipmentEffectComponent) {
+                    EquipmentEffectComponent eec = (EquipmentEffectComponent) component;
+                    eec.effectID = EquipmentItemIds.of(item);
+                    if (eec.duration != AlterationEffects.DURATION_INDEFINITE) {
+                        eec.expiresAt = environment.getGameTimeInMs() + Math.max(eec.duration, 0);
+                    }
+                    effectsList.getOrCreateEffectsOfType(EquipmentEffectKeys.keyOf(eec.getClass(), eec.id))
+                            .put(eec.effectID, eec);
+                }
+            }
+        }
+        character = entities.create(effectsList);
+    }
+
+    @Benchmark
+    public OnEffectModifyEvent effectApplied() {
+        return apply(regeneration, "");
+    }
+
+    @Benchmark
+    public OnEffectModifyEvent resistanceApplied() {
+        return apply(resistance, "poisonDamage");
+    }
+
+    @Benchmark
+    public OnEffectModifyEvent combineEffects() {
+        environment.dropCombinedEffects();
+        return apply(regeneration, "");
+    }
+
+    @Benchmark
+    public OnEffectModifyEvent combineResistances() {
+        environment.dropCombinedEffects();
+        return apply(resistance, "poisonDamage");
+    }
+
+    private OnEffectModifyEvent apply(AlterationEffect alterationEffect, String id) {
+        OnEffectModifyEvent event = new OnEffectModifyEvent(character, character, 0, 0, alterationEffect, id);
+        effects.onEquipmentEffectApplied(event, character);
+        return event;
+    }
+}
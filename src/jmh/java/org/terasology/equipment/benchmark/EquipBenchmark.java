@@ -0,0 +1,117 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentInventoryComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.system.EquipmentSystem;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.BeforeItemPutInInventory;
+import org.terasology.module.inventory.events.BeforeItemRemovedFromInventory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures equipping and unequipping a weapon through the equipment inventory handlers of the EquipmentSystem, which
+ * is where equipItem and unequipItem are called from. The resulting equip and unequip events reach the combat totals
+ * and the EquipmentEffectsSystem, every other slot of the character holds an item from the module's prefabs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EquipBenchmark {
+    private static final String WEAPON = "BronzeLongsword";
+
+    /**
+     * A character wearing a full set of equipment except for a weapon, with its equipment inventory.
+     */
+    public abstract static class Character {
+        EquipmentSystem equipment;
+        EntityRef character;
+        EntityRef equipmentInventory;
+        EquipmentInventoryComponent eqInv;
+        InventoryComponent inventory;
+        EntityRef weapon;
+
+        @Setup(Level.Trial)
+        public void createCharacter() {
+            EquipmentBenchmarkEnvironment environment = new EquipmentBenchmarkEnvironment();
+            environment.dispatchEquipEvents();
+            BenchmarkEntityManager entities = environment.getEntities();
+            equipment = environment.getEquipment();
+
+            character = environment.getFixtures().createCharacter(entities);
+            environment.getFixtures().fillSlots(entities, character, false);
+            EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+            eq.getSlotOfType("Weapon").itemRefs.set(0, EntityRef.NULL);
+            eq.reindexSlots();
+
+            eqInv = new EquipmentInventoryComponent();
+            inventory = new InventoryComponent(eq.numberOfSlots);
+            equipmentInventory = entities.create(eqInv, inventory);
+            weapon = environment.getFixtures().createItem(entities, WEAPON);
+        }
+
+        boolean isWeaponEquipped() {
+            EquipmentSlot slot = character.getComponent(EquipmentComponent.class).getSlotOfType("Weapon");
+            return slot.itemRefs.get(0) == weapon;
+        }
+
+        boolean equip() {
+            BeforeItemPutInInventory event = new BeforeItemPutInInventory(character, weapon, 0);
+            equipment.itemPutIntoEquipmentSlot(event, equipmentInventory, eqInv, inventory);
+            return event.isConsumed();
+        }
+
+        boolean unequip() {
+            BeforeItemRemovedFromInventory event = new BeforeItemRemovedFromInventory(character, weapon, 0);
+            equipment.itemRemovedFromEquipmentSlot(event, equipmentInventory, eqInv, inventory);
+            return event.isConsumed();
+        }
+    }
+
+    /**
+     * The character, with the weapon slot empty before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Unequipped extends Character {
+        @Setup(Level.Invocation)
+        public void unequipWeapon() {
+            if (isWeaponEquipped()) {
+                unequip();
+            }
+        }
+    }
+
+    /**
+     * The character, holding the weapon before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Equipped extends Character {
+        @Setup(Level.Invocation)
+        public void equipWeapon() {
+            if (!isWeaponEquipped()) {
+                equip();
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean equipItem(Unequipped state) {
+        return state.equip();
+    }
+
+    @Benchmark
+    public boolean unequipItem(Equipped state) {
+        return state.unequip();
+    }
+}
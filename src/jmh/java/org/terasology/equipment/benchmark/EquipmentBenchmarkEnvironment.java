@@ -0,0 +1,296 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.terasology.engine.audio.AudioManager;
+import org.terasology.engine.audio.StaticSound;
+import org.terasology.engine.audio.StaticSoundData;
+import org.terasology.engine.audio.nullAudio.NullSound;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.context.internal.ContextImpl;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabData;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.registry.InjectionHelper;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.UnequipItemEvent;
+import org.terasology.equipment.system.EquipmentArchetypeRegistry;
+import org.terasology.equipment.system.EquipmentEffectsAuthoritySystem;
+import org.terasology.equipment.system.EquipmentEffectsSystem;
+import org.terasology.equipment.system.EquipmentMetricsSystem;
+import org.terasology.equipment.system.EquipmentSystem;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.management.AssetManager;
+import org.terasology.gestalt.assets.management.AssetTypeManager;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sets up the equipment systems for the benchmarks, without starting the engine.
+ *
+ * The systems get their dependencies injected from a context holding the in-memory {@link BenchmarkEntityManager}, a
+ * game clock that only moves when a benchmark advances it, a silent AudioManager, and an AssetManager that only knows
+ * the sounds, damage types and equipment prefabs the equipment systems look up. The equipment prefabs are loaded from
+ * the module's prefab files and compiled by the archetype registry, so items take the same paths as in the game.
+ */
+public final class EquipmentBenchmarkEnvironment {
+    private final BenchmarkEntityManager entities = new BenchmarkEntityManager();
+    private final EquipmentFixtures fixtures = EquipmentFixtures.load();
+    private final AssetType<Prefab, PrefabData> prefabType = new AssetType<>(Prefab.class, PojoPrefab::new);
+
+    private final EquipmentMetricsSystem metrics = new EquipmentMetricsSystem();
+    private final EquipmentArchetypeRegistry archetypes = new EquipmentArchetypeRegistry();
+    private final EquipmentSystem equipment = new EquipmentSystem();
+    private final EquipmentEffectsSystem effects = new EquipmentEffectsSystem();
+    private final EquipmentEffectsAuthoritySystem authority = new EquipmentEffectsAuthoritySystem();
+
+    private final Context context = new ContextImpl();
+    private final Map<?, ?> combinedEffects;
+    private final Map<?, ?> aggregatedEffects;
+
+    private long gameTime = 1000;
+
+    public EquipmentBenchmarkEnvironment() {
+        context.put(Context.class, context);
+        context.put(Time.class, createTime());
+        context.put(EntityManager.class, entities.asEntityManager());
+        context.put(AudioManager.class, noOp(AudioManager.class));
+        context.put(PrefabManager.class, createPrefabManager(fixtures.loadPrefabs(prefabType)));
+        context.put(AssetManager.class, createAssetManager());
+        context.put(EquipmentMetricsSystem.class, metrics);
+        context.put(EquipmentArchetypeRegistry.class, archetypes);
+        CoreRegistry.setContext(context);
+
+        for (Object system : new Object[]{metrics, archetypes, equipment, effects, authority}) {
+            InjectionHelper.inject(system, context);
+        }
+        archetypes.initialise();
+        equipment.initialise();
+        effects.initialise();
+
+        combinedEffects = (Map<?, ?>) read(effects, "combinedEffects");
+        aggregatedEffects = (Map<?, ?>) read(effects, "aggregatedEffects");
+    }
+
+    /**
+     * Drops every combination of equipment effects that the EquipmentEffectsSystem has cached, so that the next
+     * effect modification combines them again.
+     */
+    public void dropCombinedEffects() {
+        combinedEffects.clear();
+        aggregatedEffects.clear();
+    }
+
+    /**
+     * Makes equip and unequip events reach the handlers that keep the combat totals and the equipment effects up to
+     * date, like the engine's event system would.
+     */
+    public void dispatchEquipEvents() {
+        entities.on(EquipItemEvent.class, (event, entity) -> {
+            EquipmentComponent eq = entity.getComponent(EquipmentComponent.class);
+            if (eq != null) {
+                equipment.updateCombatTotals(event, entity, eq);
+                effects.onEquip(event, entity, eq);
+                authority.onEquip(event, entity, eq);
+            }
+        });
+        entities.on(UnequipItemEvent.class, (event, entity) -> {
+            EquipmentComponent eq = entity.getComponent(EquipmentComponent.class);
+            if (eq != null) {
+                equipment.updateCombatTotals(event, entity, eq);
+                effects.onUnequip(event, entity, eq);
+            }
+        });
+    }
+
+    /**
+     * Returns a damage type prefab, like the ones damage events carry.
+     *
+     * @param urn the urn of the damage type, like "engine:physicalDamage"
+     * @return the damage type prefab
+     */
+    public Prefab getDamageType(String urn) {
+        ResourceUrn resourceUrn = new ResourceUrn(urn);
+        return prefabType.getAsset(resourceUrn).orElseGet(() -> prefabType.loadAsset(resourceUrn, new PrefabData()));
+    }
+
+    /**
+     * Moves the game clock forward.
+     *
+     * @param millis the time to add (in milliseconds)
+     */
+    public void advance(long millis) {
+        gameTime += millis;
+    }
+
+    public long getGameTimeInMs() {
+        return gameTime;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public BenchmarkEntityManager getEntities() {
+        return entities;
+    }
+
+    public EquipmentFixtures getFixtures() {
+        return fixtures;
+    }
+
+    public EquipmentSystem getEquipment() {
+        return equipment;
+    }
+
+    public EquipmentEffectsSystem getEffects() {
+        return effects;
+    }
+
+    public EquipmentEffectsAuthoritySystem getAuthority() {
+        return authority;
+    }
+
+    /**
+     * Reads a private field of a system, for the benchmarks that need to reach past its public handlers.
+     *
+     * @param target the object to read from
+     * @param name   the name of the field
+     * @return the value of the field
+     */
+    static Object read(Object target, String name) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read " + name + " of " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Sets a private field of an object, for the benchmarks that set up UI classes without loading their layout.
+     *
+     * @param target the object to change
+     * @param field  the field to set
+     * @param value  the new value of the field
+     */
+    static void write(Object target, Field field, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + field.getName() + " of "
+                    + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    private Time createTime() {
+        return (Time) Proxy.newProxyInstance(Time.class.getClassLoader(), new Class<?>[]{Time.class},
+                (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == long.class) {
+                        return gameTime;
+                    } else if (returnType == float.class) {
+                        return gameTime / 1000f;
+                    }
+                    return defaultValue(returnType);
+                });
+    }
+
+    private AssetManager createAssetManager() {
+        AssetType<StaticSound, StaticSoundData> soundType = new AssetType<>(StaticSound.class, NullSound::new);
+        for (String sound : new String[]{"Equipment:metal-clash", "Equipment:metal-clash-reverse"}) {
+            soundType.loadAsset(new ResourceUrn(sound), new StaticSoundData(ByteBuffer.allocate(0), 1, 22050, 16));
+        }
+
+        AssetTypeManager assetTypes = (AssetTypeManager) Proxy.newProxyInstance(
+                AssetTypeManager.class.getClassLoader(), new Class<?>[]{AssetTypeManager.class},
+                (proxy, method, args) -> {
+                    Class<?> requested = args != null && args.length == 1 && args[0] instanceof Class
+                            ? (Class<?>) args[0] : null;
+                    AssetType<?, ?> assetType = requested == null ? null
+                            : requested.isAssignableFrom(StaticSound.class) ? soundType
+                            : requested.isAssignableFrom(Prefab.class) ? prefabType : null;
+                    switch (method.getName()) {
+                        case "getAssetType":
+                            return Optional.ofNullable(assetType);
+                        case "getAssetTypes":
+                            return assetType == null ? Collections.emptyList() : Collections.singletonList(assetType);
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+        return new AssetManager(assetTypes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PrefabManager createPrefabManager(List<Prefab> prefabs) {
+        return (PrefabManager) Proxy.newProxyInstance(PrefabManager.class.getClassLoader(),
+                new Class<?>[]{PrefabManager.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "listPrefabs":
+                            if (args == null || args.length == 0) {
+                                return prefabs;
+                            }
+                            List<Prefab> withComponent = new ArrayList<>();
+                            for (Prefab prefab : prefabs) {
+                                if (prefab.hasComponent((Class<? extends Component>) args[0])) {
+                                    withComponent.add(prefab);
+                                }
+                            }
+                            return withComponent;
+                        case "getPrefab":
+                            for (Prefab prefab : prefabs) {
+                                if (prefab.getUrn().equals(new ResourceUrn(args[0].toString()))) {
+                                    return prefab;
+                                }
+                            }
+                            return null;
+                        case "exists":
+                            return prefabs.stream().anyMatch(prefab ->
+                                    prefab.getUrn().equals(new ResourceUrn(args[0].toString())));
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static <T> T noOp(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> defaultValue(method.getReturnType())));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == Optional.class) {
+            return Optional.empty();
+        } else if (type.isAssignableFrom(List.class)) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+}
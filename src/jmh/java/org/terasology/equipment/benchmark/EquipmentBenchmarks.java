@@ -0,0 +1,37 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the equipment benchmarks with the gc profiler, so that every result also shows how much each operation
+ * allocates. Any JMH command line option can be passed to narrow the run down, like a benchmark name pattern.
+ *
+ * The fixtures are read relative to the working directory, which should be the root of this module; see
+ * {@link EquipmentFixtures} for the system properties that point them elsewhere.
+ */
+public final class EquipmentBenchmarks {
+    private EquipmentBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(EquipmentBenchmarks.class.getPackage().getName() + "\\..*Benchmark\\..*");
+        }
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        new Runner(options).run();
+    }
+}
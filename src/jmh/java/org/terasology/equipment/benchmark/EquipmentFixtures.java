@@ -0,0 +1,305 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabData;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentItemComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.component.effects.BodyTemperatureEffectComponent;
+import org.terasology.equipment.component.effects.BoostEffectComponent;
+import org.terasology.equipment.component.effects.BreathingEffectComponent;
+import org.terasology.equipment.component.effects.BuffEffectComponent;
+import org.terasology.equipment.component.effects.CureDamageOverTimeEffectComponent;
+import org.terasology.equipment.component.effects.DamageOverTimeEffectComponent;
+import org.terasology.equipment.component.effects.DecoverEffectComponent;
+import org.terasology.equipment.component.effects.ItemUseSpeedEffectComponent;
+import org.terasology.equipment.component.effects.JumpSpeedEffectComponent;
+import org.terasology.equipment.component.effects.MultiJumpEffectComponent;
+import org.terasology.equipment.component.effects.RegenEffectComponent;
+import org.terasology.equipment.component.effects.ResistEffectComponent;
+import org.terasology.equipment.component.effects.StunEffectComponent;
+import org.terasology.equipment.component.effects.SwimSpeedEffectComponent;
+import org.terasology.equipment.component.effects.WalkSpeedEffectComponent;
+import org.terasology.gestalt.assets.AssetType;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.physicalstats.component.PhysicalStatsComponent;
+import org.terasology.physicalstats.component.PhysicalStatsModifierComponent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The equipment items and characters used by the benchmarks, read from the module's own prefab files.
+ *
+ * Prefabs are read from the directory named by the "equipment.prefabs" system property (assets/prefabs/Equipment by
+ * default), and the equipment slots of characters from the player prefab delta named by "equipment.playerPrefab"
+ * (deltas/engine/prefabs/player/player.prefab by default). Only the components the equipment systems read are
+ * created; anything else in the prefabs, like the item icon, is skipped. Once the prefabs have been loaded as assets
+ * with {@link #loadPrefabs(AssetType)}, items are created from them like the engine would.
+ */
+public final class EquipmentFixtures {
+    private static final Map<String, Class<? extends Component>> COMPONENTS = new HashMap<>();
+
+    static {
+        register(EquipmentItemComponent.class);
+        register(DisplayNameComponent.class);
+        register(PhysicalStatsModifierComponent.class);
+        register(BodyTemperatureEffectComponent.class);
+        register(BoostEffectComponent.class);
+        register(BreathingEffectComponent.class);
+        register(BuffEffectComponent.class);
+        register(CureDamageOverTimeEffectComponent.class);
+        register(DamageOverTimeEffectComponent.class);
+        register(DecoverEffectComponent.class);
+        register(ItemUseSpeedEffectComponent.class);
+        register(JumpSpeedEffectComponent.class);
+        register(MultiJumpEffectComponent.class);
+        register(RegenEffectComponent.class);
+        register(ResistEffectComponent.class);
+        register(StunEffectComponent.class);
+        register(SwimSpeedEffectComponent.class);
+        register(WalkSpeedEffectComponent.class);
+    }
+
+    private final Gson gson = new Gson();
+    private final List<ItemPrefab> items;
+    private final JsonArray playerSlots;
+
+    private EquipmentFixtures(List<ItemPrefab> items, JsonArray playerSlots) {
+        this.items = items;
+        this.playerSlots = playerSlots;
+    }
+
+    /**
+     * Reads the equipment prefabs and the player prefab delta.
+     *
+     * @return the fixtures
+     */
+    public static EquipmentFixtures load() {
+        Path prefabs = Paths.get(System.getProperty("equipment.prefabs", "assets/prefabs/Equipment"));
+        Path player = Paths.get(System.getProperty("equipment.playerPrefab",
+                "deltas/engine/prefabs/player/player.prefab"));
+
+        List<ItemPrefab> items = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(prefabs)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".prefab")).sorted()
+                    .collect(Collectors.toList())) {
+                JsonObject prefab = read(file);
+                if (prefab.has("EquipmentItem")) {
+                    String name = file.getFileName().toString().replace(".prefab", "");
+                    items.add(new ItemPrefab(name, prefab));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the equipment prefabs in " + prefabs.toAbsolutePath(), e);
+        }
+        if (items.isEmpty()) {
+            throw new IllegalStateException("No equipment prefabs found in " + prefabs.toAbsolutePath());
+        }
+
+        JsonArray slots = read(player).getAsJsonObject("Equipment").getAsJsonArray("equipmentSlots");
+        return new EquipmentFixtures(Collections.unmodifiableList(items), slots);
+    }
+
+    /**
+     * @return the names of all equipment prefabs, in a stable order
+     */
+    public List<String> getItemNames() {
+        return items.stream().map(item -> item.name).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the names of the equipment prefabs that have equipment effects, in a stable order
+     */
+    public List<String> getEffectItemNames() {
+        return items.stream().filter(ItemPrefab::hasEffects).map(item -> item.name).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an item with the components of an equipment prefab. Every item gets its own copy of the components.
+     *
+     * @param entities the manager creating the item
+     * @param name     the name of the prefab, like "BronzeLongsword"
+     * @return the new item
+     */
+    public BenchmarkEntityRef createItem(BenchmarkEntityManager entities, String name) {
+        for (ItemPrefab item : items) {
+            if (item.name.equals(name)) {
+                return createItem(entities, item);
+            }
+        }
+        throw new IllegalArgumentException("No equipment prefab named " + name);
+    }
+
+    /**
+     * Creates one item for every equipment slot of a character, and puts it into the slot without going through the
+     * equipment systems.
+     *
+     * @param entities  the manager creating the items
+     * @param character a character created by {@link #createCharacter(BenchmarkEntityManager)}
+     * @param effects   whether to prefer items with equipment effects
+     * @return the items, in slot order
+     */
+    public List<EntityRef> fillSlots(BenchmarkEntityManager entities, EntityRef character, boolean effects) {
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        List<EntityRef> equipped = new ArrayList<>();
+        for (EquipmentSlot slot : eq.equipmentSlots) {
+            List<ItemPrefab> candidates = items.stream()
+                    .filter(item -> slot.type.equalsIgnoreCase(item.location()))
+                    .sorted((a, b) -> Boolean.compare(effects && b.hasEffects(), effects && a.hasEffects()))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < slot.itemRefs.size() && !candidates.isEmpty(); i++) {
+                EntityRef item = createItem(entities, candidates.get(i % candidates.size()));
+                slot.itemRefs.set(i, item);
+                equipped.add(item);
+            }
+        }
+        character.saveComponent(eq);
+        return equipped;
+    }
+
+    /**
+     * Creates a character with the equipment slots of the player prefab, all empty, and default physical stats.
+     *
+     * @param entities the manager creating the character
+     * @return the new character
+     */
+    public BenchmarkEntityRef createCharacter(BenchmarkEntityManager entities) {
+        EquipmentComponent eq = createEquipment();
+
+        PhysicalStatsComponent phy = new PhysicalStatsComponent();
+        phy.strength = 10;
+        phy.dexterity = 10;
+        phy.constitution = 10;
+        phy.endurance = 10;
+        phy.agility = 10;
+        phy.charisma = 10;
+        phy.luck = 10;
+
+        return entities.create(eq, phy);
+    }
+
+    /**
+     * Creates an equipment component with the equipment slots of the player prefab, all empty. Every component gets
+     * its own copies of the slot names and types, like components loaded from a saved game, and its slots are not
+     * indexed yet.
+     *
+     * @return the new equipment component
+     */
+    public EquipmentComponent createEquipment() {
+        EquipmentComponent eq = new EquipmentComponent();
+        for (JsonElement element : playerSlots) {
+            JsonObject json = element.getAsJsonObject();
+            EquipmentSlot slot = new EquipmentSlot();
+            slot.name = new String(json.get("name").getAsString());
+            slot.type = new String(json.get("type").getAsString());
+            slot.numSlotsOfSameType = json.has("numSlotsOfSameType") ? json.get("numSlotsOfSameType").getAsInt() : 1;
+            for (int i = 0; i < slot.numSlotsOfSameType; i++) {
+                slot.itemRefs.add(EntityRef.NULL);
+            }
+            eq.equipmentSlots.add(slot);
+            eq.numberOfSlots += slot.numSlotsOfSameType;
+        }
+        return eq;
+    }
+
+    /**
+     * Loads every equipment prefab as a prefab asset named "Equipment:" followed by its file name, like the engine
+     * does, so that the items created afterwards have it as their parent prefab.
+     *
+     * @param prefabType the asset type to load the prefabs into
+     * @return the loaded prefabs, in a stable order
+     */
+    public List<Prefab> loadPrefabs(AssetType<Prefab, PrefabData> prefabType) {
+        List<Prefab> prefabs = new ArrayList<>();
+        for (ItemPrefab item : items) {
+            PrefabData data = new PrefabData();
+            for (Component component : createComponents(item)) {
+                data.addComponent(component);
+            }
+            item.prefab = prefabType.loadAsset(new ResourceUrn("Equipment", item.name), data);
+            prefabs.add(item.prefab);
+        }
+        return prefabs;
+    }
+
+    private BenchmarkEntityRef createItem(BenchmarkEntityManager entities, ItemPrefab item) {
+        return entities.createFromPrefab(item.prefab, createComponents(item).toArray(new Component[0]));
+    }
+
+    private List<Component> createComponents(ItemPrefab item) {
+        List<Component> components = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> json : item.json.entrySet()) {
+            Class<? extends Component> componentClass = COMPONENTS.get(json.getKey());
+            if (componentClass != null) {
+                components.add(gson.fromJson(json.getValue(), componentClass));
+            }
+        }
+        return components;
+    }
+
+    private static void register(Class<? extends Component> componentClass) {
+        COMPONENTS.put(componentClass.getSimpleName().replaceFirst("Component$", ""), componentClass);
+    }
+
+    private static JsonObject read(Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * The JSON of one equipment prefab.
+     */
+    private static final class ItemPrefab {
+        private final String name;
+        private final JsonObject json;
+
+        /** The prefab asset of the item, once loaded by {@link #loadPrefabs(AssetType)}. */
+        private Prefab prefab;
+
+        private ItemPrefab(String name, JsonObject json) {
+            this.name = name;
+            this.json = json;
+        }
+
+        private String location() {
+            return json.getAsJsonObject("EquipmentItem").get("location").getAsString();
+        }
+
+        private boolean hasEffects() {
+            for (String key : json.keySet()) {
+                Class<? extends Component> componentClass = COMPONENTS.get(key);
+                if (componentClass != null && EquipmentEffectComponent.class.isAssignableFrom(componentClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
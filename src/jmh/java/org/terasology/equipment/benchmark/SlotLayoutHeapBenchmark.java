@@ -0,0 +1,125 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained per EquipmentComponent with the slots of the player prefab, as the "bytesPerEntity"
+ * secondary result: the growth of the used heap after a full GC, over 'entities' components kept alive at once.
+ *
+ * With the "legacy" layout, every component keeps its own slot name and type strings and its own slot type lookup
+ * map, as it did before slot layouts were shared. With the "shared" layout, its slots are indexed, so they refer to
+ * the shared EquipmentSlotLayout and its strings instead. The time of each run is just the cost of creating the
+ * components, and isn't what this benchmark is about.
+ *
+ * JMH adds up the secondary results of all measurement iterations, so there is only one; the heap measured by a run
+ * hardly varies anyway.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+public class SlotLayoutHeapBenchmark {
+    @Param({"100000"})
+    public int entities;
+
+    @Param({"legacy", "shared"})
+    public String layout;
+
+    private EquipmentFixtures fixtures;
+
+    /** Keeps the created components alive until the heap has been measured. */
+    private Object[] retained;
+
+    /**
+     * The heap measured by one run.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long bytesPerEntity;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerEntity = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        fixtures = EquipmentFixtures.load();
+    }
+
+    @Setup(Level.Iteration)
+    public void allocate() {
+        retained = new Object[entities];
+    }
+
+    @Benchmark
+    public Object[] retainComponents(Heap heap) {
+        boolean legacy = "legacy".equals(layout);
+        long before = usedHeap();
+        for (int i = 0; i < retained.length; i++) {
+            EquipmentComponent eq = fixtures.createEquipment();
+            retained[i] = legacy ? new LegacyEquipment(eq) : index(eq);
+        }
+        heap.bytesPerEntity = (usedHeap() - before) / retained.length;
+        return retained;
+    }
+
+    private static EquipmentComponent index(EquipmentComponent eq) {
+        eq.reindexSlots();
+        return eq;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * An equipment component together with the slot type lookup map it used to build for itself.
+     */
+    private static final class LegacyEquipment {
+        private final EquipmentComponent eq;
+        private final Map<String, Integer> slotTypeIndex = new HashMap<>();
+
+        private LegacyEquipment(EquipmentComponent eq) {
+            this.eq = eq;
+            for (int i = 0; i < eq.equipmentSlots.size(); i++) {
+                EquipmentSlot slot = eq.equipmentSlots.get(i);
+                if (slot.type != null && !slotTypeIndex.containsKey(slot.type.toLowerCase(Locale.ROOT))) {
+                    slotTypeIndex.put(slot.type.toLowerCase(Locale.ROOT).intern(), i);
+                    slotTypeIndex.putIfAbsent(slot.type.intern(), i);
+                }
+            }
+        }
+    }
+}
@@ -19,15 +19,113 @@ public final class EquipmentComponent implements Component<EquipmentComponent> {
     /** The total number of inventory slots. Should be updated when an element of 'equipmentSlots' (List) is changed. */
     public int numberOfSlots;
 
+    /**
+     * Whether the equipment of this entity is dropped into a single loot bag when it dies, instead of as one pickup
+     * per item.
+     */
+    public boolean dropIntoLootBag;
+
     /** A List of equipment slots. */
     // Replace or add a map?
     @Replicate
     public List<EquipmentSlot> equipmentSlots = Lists.newArrayList();
 
+    /** The shared layout of 'equipmentSlots', used to look up slots by type. */
+    private transient EquipmentSlotLayout slotLayout;
+
+    /** The slot list that slotLayout was built from, used to notice when the list is replaced or resized. */
+    private transient List<EquipmentSlot> indexedSlots;
+    private transient int indexedSlotCount;
+
+    /**
+     * Returns the index of the first equipment slot accepting the given type, ignoring case.
+     *
+     * @param type the slot type, usually the location of an equipment item
+     * @return the index of the slot in 'equipmentSlots', or -1 if there is no slot of this type
+     */
+    public int getSlotIndex(String type) {
+        if (type == null) {
+            return -1;
+        }
+        if (slotLayout == null || indexedSlots != equipmentSlots || indexedSlotCount != equipmentSlots.size()) {
+            reindexSlots();
+        }
+
+        int index = slotLayout.getSlotIndex(type);
+        if (index < 0) {
+            return -1;
+        }
+
+        // A slot's type may have been edited in place. If so, rebuild the index once and look again.
+        if (!type.equalsIgnoreCase(equipmentSlots.get(index).type)) {
+            reindexSlots();
+            return slotLayout.getSlotIndex(type);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the first equipment slot accepting the given type, ignoring case.
+     *
+     * @param type the slot type, usually the location of an equipment item
+     * @return the matching slot, or null if there is no slot of this type
+     */
+    public EquipmentSlot getSlotOfType(String type) {
+        int index = getSlotIndex(type);
+        return index < 0 ? null : equipmentSlots.get(index);
+    }
+
+    /**
+     * Returns the shared layout of the equipment slots.
+     *
+     * @return the layout describing the names, types and multiplicities of 'equipmentSlots'
+     */
+    public EquipmentSlotLayout getSlotLayout() {
+        if (slotLayout == null || indexedSlots != equipmentSlots || !slotLayout.matches(equipmentSlots)) {
+            reindexSlots();
+        }
+        return slotLayout;
+    }
+
+    /**
+     * Returns the shared layout the equipment slots were last indexed with, without indexing them. Unlike
+     * {@link #getSlotLayout()}, this never changes the slots, which makes it suitable for inspecting an entity.
+     *
+     * @return the layout of 'equipmentSlots', or null if the slots haven't been indexed since they were replaced or
+     *         resized
+     */
+    public EquipmentSlotLayout getIndexedSlotLayout() {
+        if (indexedSlots != equipmentSlots || indexedSlotCount != equipmentSlots.size()) {
+            return null;
+        }
+        return slotLayout;
+    }
+
+    /**
+     * Looks up the shared slot layout again. Call this after changing the type of an existing slot in place; replacing
+     * or resizing 'equipmentSlots' is picked up automatically.
+     *
+     * The names and types of the slots are replaced by the layout's instances, so that entities with the same layout
+     * don't each keep their own copies of these strings.
+     */
+    public void reindexSlots() {
+        EquipmentSlotLayout layout = EquipmentSlotLayout.of(equipmentSlots);
+        for (int i = 0; i < equipmentSlots.size(); i++) {
+            EquipmentSlot slot = equipmentSlots.get(i);
+            slot.name = layout.getName(i);
+            slot.type = layout.getType(i);
+        }
+        slotLayout = layout;
+        indexedSlots = equipmentSlots;
+        indexedSlotCount = equipmentSlots.size();
+    }
+
     @Override
     public void copyFrom(EquipmentComponent other) {
         this.equipmentInventory = other.equipmentInventory;
         this.numberOfSlots = other.numberOfSlots;
+        this.dropIntoLootBag = other.dropIntoLootBag;
         this.equipmentSlots = Lists.newArrayList(other.equipmentSlots);
+        this.slotLayout = null;
     }
 }
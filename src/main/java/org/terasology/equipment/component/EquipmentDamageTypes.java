@@ -0,0 +1,72 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Assigns each damage type name (such as "physicalDamage" or "poisonDamage") a dense int index the first time it is
+ * seen, so that per-damage-type values can be kept in plain arrays instead of maps keyed by String. Names are matched
+ * ignoring case, like the names of the damage type prefabs they come from.
+ *
+ * Like the rest of the entity system, this is only meant to be used from the main game thread.
+ */
+public final class EquipmentDamageTypes {
+    private static final Map<String, Integer> INDICES = new HashMap<>();
+    private static final List<String> NAMES = new ArrayList<>();
+
+    private EquipmentDamageTypes() {
+    }
+
+    /**
+     * Returns the index of a damage type, registering it if this is the first time it is seen.
+     *
+     * @param name the name of the damage type
+     * @return the dense index of the damage type
+     */
+    public static int indexOf(String name) {
+        String key = keyOf(name);
+        Integer index = INDICES.get(key);
+        if (index == null) {
+            index = NAMES.size();
+            NAMES.add(name);
+            INDICES.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of a damage type without registering it, for lookups that should not grow the per-type
+     * arrays, like damage type names coming from events.
+     *
+     * @param name the name of the damage type
+     * @return the dense index of the damage type, or -1 if it hasn't been registered
+     */
+    public static int find(String name) {
+        Integer index = INDICES.get(keyOf(name));
+        return index == null ? -1 : index;
+    }
+
+    private static String keyOf(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param index the index of a damage type
+     * @return the name of the damage type, as first registered
+     */
+    public static String nameOf(int index) {
+        return NAMES.get(index);
+    }
+
+    /**
+     * @return the number of damage types registered so far, and so the length needed for a per-type array
+     */
+    public static int size() {
+        return NAMES.size();
+    }
+}
@@ -2,6 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.equipment.component;
 
+import org.terasology.alterationEffects.AlterationEffects;
 import org.terasology.engine.network.Replicate;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.reflection.MappedContainer;
@@ -19,6 +20,10 @@ public class EquipmentEffectComponent implements Component<EquipmentEffectCompon
     @Replicate
     public int duration;
 
+    /** The game time (in ms) at which this effect expires while equipped, or 0 if it isn't counting down */
+    @Replicate
+    public long expiresAt;
+
     /** The magnitude of the effect */
     @Replicate
     public float magnitude;
@@ -39,9 +44,23 @@ public class EquipmentEffectComponent implements Component<EquipmentEffectCompon
     public void copyFrom(EquipmentEffectComponent other) {
         this.effectID = other.effectID;
         this.duration = other.duration;
+        this.expiresAt = other.expiresAt;
         this.magnitude = other.magnitude;
         this.affectsUser = other.affectsUser;
         this.affectsEnemies = other.affectsEnemies;
         this.id = other.id;
     }
+
+    /**
+     * Returns how much of this effect's duration is left at the given game time.
+     *
+     * @param gameTime the current game time in ms
+     * @return the remaining duration in ms, or the configured duration if the effect isn't counting down
+     */
+    public int getRemainingDuration(long gameTime) {
+        if (expiresAt == 0 || duration == AlterationEffects.DURATION_INDEFINITE) {
+            return duration;
+        }
+        return (int) Math.max(0, expiresAt - gameTime);
+    }
 }
@@ -0,0 +1,75 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the keys under which equipment effects are grouped: an effect class plus an optional subtype id. Each
+ * distinct key is assigned a small int once, so that the effect hooks don't have to rebuild and hash the key String
+ * every time.
+ *
+ * The String form (the class type name followed by the subtype id) is what is stored in
+ * {@link EquipmentEffectsListComponent#effects}, and is used to map saved or replicated effects back to their key.
+ *
+ * Like the rest of the entity system, this is only meant to be used from the main game thread.
+ */
+public final class EquipmentEffectKeys {
+    private static final Map<Class, Map<String, Integer>> KEYS_BY_CLASS = new IdentityHashMap<>();
+    private static final Map<String, Integer> KEYS_BY_NAME = new HashMap<>();
+    private static final List<String> NAMES = new ArrayList<>();
+
+    private EquipmentEffectKeys() {
+    }
+
+    /**
+     * Returns the key of an effect class and subtype, registering it if this is the first time it is seen.
+     *
+     * @param effectClass the equipment effect component class
+     * @param id          the subtype id of the effect, or an empty String (or null) if it has none
+     * @return the interned key
+     */
+    public static int keyOf(Class effectClass, String id) {
+        String subtype = id == null ? "" : id;
+        Map<String, Integer> keysOfClass = KEYS_BY_CLASS.get(effectClass);
+        if (keysOfClass == null) {
+            keysOfClass = new HashMap<>();
+            KEYS_BY_CLASS.put(effectClass, keysOfClass);
+        }
+
+        Integer key = keysOfClass.get(subtype);
+        if (key == null) {
+            key = keyOf(effectClass.getTypeName() + subtype);
+            keysOfClass.put(subtype, key);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the key of an effect type by its String form, registering it if this is the first time it is seen.
+     *
+     * @param name the class type name of the effect, followed by its subtype id if any
+     * @return the interned key
+     */
+    public static int keyOf(String name) {
+        Integer key = KEYS_BY_NAME.get(name);
+        if (key == null) {
+            key = NAMES.size();
+            NAMES.add(name);
+            KEYS_BY_NAME.put(name, key);
+        }
+        return key;
+    }
+
+    /**
+     * @param key an interned key
+     * @return the String form of the key
+     */
+    public static String nameOf(int key) {
+        return NAMES.get(key);
+    }
+}
@@ -17,13 +17,79 @@ import java.util.Map;
  * Note: Make sure that the entity you are attaching this to has a PhysicalStatsComponent.
  */
 public class EquipmentEffectsListComponent implements Component<EquipmentEffectsListComponent> {
-    /** A map of equipment-based effects being applied to an entity. */
-    @Replicate
+    /**
+     * A map of equipment-based effects being applied to an entity.
+     *
+     * This is only sent along when a client first receives the entity. Afterwards the owning client keeps its own
+     * copy up to date from the equip, unequip and expiry events, and counts the remaining time of finite effects down
+     * using the expiry times sent by the authority. This way, nothing is sent while the effects don't change.
+     */
+    @Replicate(initialOnly = true)
     public Map<String, Map<String, EquipmentEffectComponent>> effects =
             new HashMap<String, Map<String, EquipmentEffectComponent>>();
 
+    /** The buckets of 'effects', indexed by their interned key (see EquipmentEffectKeys). */
+    private transient IntKeyMap<Map<String, EquipmentEffectComponent>> effectsByKey;
+
+    /** The map that effectsByKey was built from, used to notice when 'effects' is replaced or changed directly. */
+    private transient Map<String, Map<String, EquipmentEffectComponent>> indexedEffects;
+
+    /**
+     * Returns the equipment effects of one effect type (and subtype if any).
+     *
+     * @param key the interned key of the effect type, see EquipmentEffectKeys
+     * @return the effects of this type mapped by their effectID, or null if there are none
+     */
+    public Map<String, EquipmentEffectComponent> getEffectsOfType(int key) {
+        return index().get(key);
+    }
+
+    /**
+     * Returns the equipment effects of one effect type (and subtype if any), adding an empty map if there are none.
+     *
+     * @param key the interned key of the effect type, see EquipmentEffectKeys
+     * @return the effects of this type mapped by their effectID
+     */
+    public Map<String, EquipmentEffectComponent> getOrCreateEffectsOfType(int key) {
+        IntKeyMap<Map<String, EquipmentEffectComponent>> index = index();
+        Map<String, EquipmentEffectComponent> effectsOfType = index.get(key);
+        if (effectsOfType == null) {
+            effectsOfType = new HashMap<>();
+            effects.put(EquipmentEffectKeys.nameOf(key), effectsOfType);
+            index.put(key, effectsOfType);
+        }
+        return effectsOfType;
+    }
+
+    /**
+     * Removes all equipment effects of one effect type (and subtype if any).
+     *
+     * @param key the interned key of the effect type, see EquipmentEffectKeys
+     */
+    public void removeEffectsOfType(int key) {
+        if (index().remove(key) != null) {
+            effects.remove(EquipmentEffectKeys.nameOf(key));
+        }
+    }
+
+    /**
+     * Returns the index of effect types, rebuilding it if 'effects' was replaced (for example when loaded or
+     * replicated) or had types added or removed without going through this component's methods.
+     */
+    private IntKeyMap<Map<String, EquipmentEffectComponent>> index() {
+        if (effectsByKey == null || indexedEffects != effects || effectsByKey.size() != effects.size()) {
+            effectsByKey = new IntKeyMap<>(effects.size());
+            for (Map.Entry<String, Map<String, EquipmentEffectComponent>> effectsOfType : effects.entrySet()) {
+                effectsByKey.put(EquipmentEffectKeys.keyOf(effectsOfType.getKey()), effectsOfType.getValue());
+            }
+            indexedEffects = effects;
+        }
+        return effectsByKey;
+    }
+
     @Override
     public void copyFrom(EquipmentEffectsListComponent other) {
         this.effects = Maps.newHashMap(other.effects);
+        this.effectsByKey = null;
     }
 }
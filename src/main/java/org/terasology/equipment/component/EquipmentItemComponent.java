@@ -5,6 +5,9 @@ package org.terasology.equipment.component;
 import org.terasology.engine.network.Replicate;
 import org.terasology.gestalt.entitysystem.component.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A component that indicates that an entity is an equipment item. It stores all attributes of the item.
  */
@@ -27,6 +30,13 @@ public class EquipmentItemComponent implements Component<EquipmentItemComponent>
     @Replicate
     public int speed;
 
+    /**
+     * Defense against other damage types than physical damage, by damage type name (like "pierceDamage"). The
+     * defense against physical damage is 'defense'.
+     */
+    @Replicate
+    public Map<String, Integer> defenseByDamageType = new HashMap<>();
+
     @Override
     public void copyFrom(EquipmentItemComponent other) {
         this.level = other.level;
@@ -37,5 +47,6 @@ public class EquipmentItemComponent implements Component<EquipmentItemComponent>
         this.defense = other.defense;
         this.weight = other.weight;
         this.speed = other.speed;
+        this.defenseByDamageType = new HashMap<>(other.defenseByDamageType);
     }
 }
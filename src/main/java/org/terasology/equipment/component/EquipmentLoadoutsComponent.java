@@ -0,0 +1,31 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.Replicate;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A component that stores the named equipment loadouts of a character. The items of every loadout that isn't in use
+ * are kept in an equipment inventory entity of its own, so switching loadouts only exchanges which of these entities
+ * is the character's equipment inventory.
+ */
+public final class EquipmentLoadoutsComponent implements Component<EquipmentLoadoutsComponent> {
+    /** The name of the loadout that is currently equipped. */
+    @Replicate
+    public String activeLoadout = "default";
+
+    /** The equipment inventories of the loadouts that aren't currently equipped, by name. */
+    @Replicate
+    public Map<String, EntityRef> loadouts = new HashMap<>();
+
+    @Override
+    public void copyFrom(EquipmentLoadoutsComponent other) {
+        this.activeLoadout = other.activeLoadout;
+        this.loadouts = new HashMap<>(other.loadouts);
+    }
+}
@@ -0,0 +1,19 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+/**
+ * A component that marks an entity as a loot bag holding the equipment dropped by characters who died nearby. The
+ * bag is destroyed, together with whatever is left in it, once it is empty or its time is up.
+ */
+public class EquipmentLootBagComponent implements Component<EquipmentLootBagComponent> {
+    /** The game time (in milliseconds) at which the bag despawns. Pushed back whenever more items are dropped in. */
+    public long despawnAt;
+
+    @Override
+    public void copyFrom(EquipmentLootBagComponent other) {
+        this.despawnAt = other.despawnAt;
+    }
+}
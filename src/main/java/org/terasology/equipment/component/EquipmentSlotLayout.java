@@ -0,0 +1,160 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The names, types and multiplicities of a list of equipment slots, shared by every entity whose equipment slots are
+ * laid out the same way. Layouts are immutable and identified by an id derived from their contents, so entities
+ * created from the same prefab all refer to one layout instead of each keeping their own slot type lookup.
+ */
+public final class EquipmentSlotLayout {
+    /** Every layout seen so far, by id. */
+    private static final Map<String, EquipmentSlotLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private final String id;
+    private final String[] names;
+    private final String[] types;
+    private final int[] multiplicities;
+
+    /** Maps each slot type, both as written and lower-cased, to the index of the first slot of that type. */
+    private final Map<String, Integer> typeIndex;
+
+    private EquipmentSlotLayout(String id, List<EquipmentSlot> slots) {
+        this.id = id;
+        this.names = new String[slots.size()];
+        this.types = new String[slots.size()];
+        this.multiplicities = new int[slots.size()];
+
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            EquipmentSlot slot = slots.get(i);
+            names[i] = slot.name == null ? null : slot.name.intern();
+            types[i] = slot.type == null ? null : slot.type.intern();
+            multiplicities[i] = slot.numSlotsOfSameType;
+
+            if (types[i] != null && !index.containsKey(types[i].toLowerCase(Locale.ROOT))) {
+                index.put(types[i].toLowerCase(Locale.ROOT).intern(), i);
+                index.putIfAbsent(types[i], i);
+            }
+        }
+        this.typeIndex = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Returns the shared layout of a list of equipment slots, creating it the first time it is seen.
+     *
+     * @param slots the equipment slots of an entity
+     * @return the layout describing the slots
+     */
+    public static EquipmentSlotLayout of(List<EquipmentSlot> slots) {
+        String id = idOf(slots);
+        EquipmentSlotLayout layout = LAYOUTS.get(id);
+        if (layout == null) {
+            layout = LAYOUTS.computeIfAbsent(id, key -> new EquipmentSlotLayout(key, slots));
+        }
+        return layout;
+    }
+
+    /**
+     * @param id the id of a layout
+     * @return the layout with that id, or null if no entity has used it yet
+     */
+    public static EquipmentSlotLayout get(String id) {
+        return LAYOUTS.get(id);
+    }
+
+    /**
+     * @return the number of distinct layouts in use
+     */
+    public static int count() {
+        return LAYOUTS.size();
+    }
+
+    /**
+     * Forgets every layout seen so far. Entities keep the layouts they already refer to, and look up a fresh one the
+     * next time their slots are reindexed.
+     */
+    public static void clear() {
+        LAYOUTS.clear();
+    }
+
+    private static String idOf(List<EquipmentSlot> slots) {
+        StringBuilder builder = new StringBuilder();
+        for (EquipmentSlot slot : slots) {
+            builder.append(slot.name).append('|').append(slot.type).append('|').append(slot.numSlotsOfSameType)
+                    .append(';');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Checks whether this layout still describes the given slots, which may have been edited in place.
+     *
+     * @param slots the equipment slots of an entity
+     * @return true if the slots have the names, types and multiplicities of this layout
+     */
+    public boolean matches(List<EquipmentSlot> slots) {
+        if (slots.size() != types.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            EquipmentSlot slot = slots.get(i);
+            if (!equals(names[i], slot.name) || !equals(types[i], slot.type)
+                    || multiplicities[i] != slot.numSlotsOfSameType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Returns the index of the first slot accepting the given type, ignoring case.
+     *
+     * @param type the slot type, usually the location of an equipment item
+     * @return the index of the slot, or -1 if there is no slot of this type
+     */
+    public int getSlotIndex(String type) {
+        if (type == null) {
+            return -1;
+        }
+        Integer index = typeIndex.get(type);
+        if (index == null) {
+            index = typeIndex.get(type.toLowerCase(Locale.ROOT));
+        }
+        return index == null ? -1 : index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int size() {
+        return types.length;
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public String getType(int slot) {
+        return types[slot];
+    }
+
+    public int getMultiplicity(int slot) {
+        return multiplicities[slot];
+    }
+}
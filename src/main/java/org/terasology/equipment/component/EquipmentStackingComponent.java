@@ -0,0 +1,26 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Declares how the equipment effects of each type stack with each other. This is never put on an entity: the
+ * EquipmentEffectsSystem reads every prefab with this component on startup, like the "Equipment:EquipmentStacking"
+ * prefab of this module, which other modules or servers can change with a delta or extend with their own prefab.
+ *
+ * The effect types are named like the effect components in item prefabs, e.g. {@code "WalkSpeedEffect": "MAX"}. If
+ * several prefabs declare the same type, the prefab whose urn sorts last wins.
+ */
+public class EquipmentStackingComponent implements Component<EquipmentStackingComponent> {
+    /** The stacking policy of each equipment effect type, by effect component name. */
+    public Map<String, EquipmentStackingPolicy> policies = new HashMap<>();
+
+    @Override
+    public void copyFrom(EquipmentStackingComponent other) {
+        this.policies = new HashMap<>(other.policies);
+    }
+}
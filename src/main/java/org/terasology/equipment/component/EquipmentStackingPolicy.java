@@ -0,0 +1,27 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.component;
+
+/**
+ * How the magnitudes of several equipment effects of the same type (and subtype if any) are combined into the one
+ * effect applied to the entity. Declared per effect type in a prefab with an {@link EquipmentStackingComponent}, or
+ * else set from code when the type is registered with the EquipmentEffectsSystem, so that all effects of a type
+ * always stack the same way. Types without a declared policy add up.
+ */
+public enum EquipmentStackingPolicy {
+    /** The magnitudes are added up. The combined effect lasts until the first finite effect runs out. */
+    SUM,
+
+    /** Only the largest magnitude counts. The combined effect lasts until the first finite effect runs out. */
+    MAX,
+
+    /**
+     * Every magnitude counts, but less the more effects there are: the combined magnitude is the square root of the
+     * sum of the squared magnitudes, so n equal effects add up to √n times one of them. The combined effect lasts
+     * until the first finite effect runs out.
+     */
+    DIMINISHING,
+
+    /** Only the effect with the largest magnitude counts, together with its own duration. */
+    UNIQUE_STRONGEST
+}
@@ -17,14 +17,124 @@ package org.terasology.equipment.component.effects;
 
 import org.terasology.alterationEffects.resist.ResistDamageEffect;
 import org.terasology.engine.network.Replicate;
+import org.terasology.equipment.component.EquipmentDamageTypes;
 import org.terasology.equipment.component.EquipmentEffectComponent;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 public class ResistEffectComponent extends EquipmentEffectComponent {
 
     /** Stores the map of damage type class name to resistances. */
     @Replicate
     public Map<String, ResistDamageEffect> resistances = new HashMap<>();
+
+    /** The damage type indices (see EquipmentDamageTypes) of 'resistances', resolved once. */
+    private transient int[] resistTypes;
+
+    /** The resist amounts of 'resistances', in the same order as resistTypes. */
+    private transient float[] resistAmounts;
+
+    /** The damage type names of 'resistances', in the same order as resistTypes. */
+    private transient String[] resistNames;
+
+    /** The map that resistTypes and resistAmounts were resolved from. */
+    private transient Map<String, ResistDamageEffect> resolvedResistances;
+
+    /** The summed resist amount of each damage type, indexed by damage type, if this is a combination of effects. */
+    private transient float[] combinedResistances;
+
+    /**
+     * @return the damage type index of each resistance, in the same order as {@link #getResistAmounts()}
+     */
+    public int[] getResistTypes() {
+        resolve();
+        return resistTypes;
+    }
+
+    /**
+     * @return the resist amount of each resistance, in the same order as {@link #getResistTypes()}
+     */
+    public float[] getResistAmounts() {
+        resolve();
+        return resistAmounts;
+    }
+
+    /**
+     * Returns the resist amount against one damage type. For a combination of effects, this is the summed amount.
+     *
+     * @param damageType the damage type index, see EquipmentDamageTypes, or -1 for an unknown damage type
+     * @return the resist amount, or 0 if there is no resistance against this damage type
+     */
+    public float getResistance(int damageType) {
+        if (damageType < 0) {
+            return 0;
+        }
+        if (combinedResistances != null) {
+            return damageType < combinedResistances.length ? combinedResistances[damageType] : 0;
+        }
+
+        int[] types = getResistTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == damageType) {
+                return resistAmounts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks this as a combination of effects, with the given summed resist amounts.
+     *
+     * @param combinedResistances the summed resist amount of each damage type, indexed by damage type
+     */
+    public void setCombinedResistances(float[] combinedResistances) {
+        this.combinedResistances = combinedResistances;
+    }
+
+    private void resolve() {
+        if (isResolved()) {
+            return;
+        }
+
+        int[] types = new int[resistances.size()];
+        float[] amounts = new float[resistances.size()];
+        String[] names = new String[resistances.size()];
+        int i = 0;
+        for (Map.Entry<String, ResistDamageEffect> resistance : resistances.entrySet()) {
+            names[i] = nameOf(resistance);
+            types[i] = EquipmentDamageTypes.indexOf(names[i]);
+            amounts[i] = resistance.getValue().resistAmount;
+            i++;
+        }
+        resistTypes = types;
+        resistAmounts = amounts;
+        resistNames = names;
+        resolvedResistances = resistances;
+    }
+
+    /**
+     * Checks whether the resolved arrays still match 'resistances', which may have been replaced or edited in place.
+     * Comparing the few entries is still much cheaper than resolving their damage types again.
+     */
+    private boolean isResolved() {
+        if (resistTypes == null || resolvedResistances != resistances || resistTypes.length != resistances.size()) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<String, ResistDamageEffect> resistance : resistances.entrySet()) {
+            if (resistance.getValue().resistAmount != resistAmounts[i]
+                    || !Objects.equals(resistNames[i], nameOf(resistance))) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    private static String nameOf(Map.Entry<String, ResistDamageEffect> resistance) {
+        String resistType = resistance.getValue().resistType;
+        return resistType != null ? resistType : resistance.getKey();
+    }
 }
@@ -0,0 +1,36 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.event;
+
+import org.terasology.engine.network.ServerEvent;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+/**
+ * This event is sent by a client to its character to switch to one of the character's named equipment loadouts. A
+ * loadout that doesn't exist yet is created empty.
+ */
+@ServerEvent
+public class ActivateLoadoutRequest implements Event {
+    private String loadout;
+
+    public ActivateLoadoutRequest() {
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param loadout the name of the loadout to switch to
+     */
+    public ActivateLoadoutRequest(String loadout) {
+        this.loadout = loadout;
+    }
+
+    /**
+     * Accessor function that returns the name of the loadout to switch to.
+     *
+     * @return the name of the loadout to switch to
+     */
+    public String getLoadout() {
+        return loadout;
+    }
+}
@@ -0,0 +1,62 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.event;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.OwnerEvent;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+/**
+ * This event is sent to an entity after one of its finite equipment effects has run out and was removed from its
+ * EquipmentEffectsListComponent. It is also sent to the owning client, so that it can remove the effect from its own
+ * copy of the list.
+ */
+@OwnerEvent
+public class EquipmentEffectExpiredEvent implements Event {
+    private String effectType;
+    private String effectID;
+    private EntityRef item = EntityRef.NULL;
+
+    public EquipmentEffectExpiredEvent() {
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param effectType the effect type (and subtype, if any) of the expired effect, in its String form
+     * @param effectID   the effectID of the expired effect
+     * @param item       the item that provided the expired effect, or EntityRef.NULL if it isn't known
+     */
+    public EquipmentEffectExpiredEvent(String effectType, String effectID, EntityRef item) {
+        this.effectType = effectType;
+        this.effectID = effectID;
+        this.item = item;
+    }
+
+    /**
+     * Accessor function that returns the effect type (and subtype, if any) of the expired effect.
+     *
+     * @return the String form of the effect type, see EquipmentEffectKeys
+     */
+    public String getEffectType() {
+        return effectType;
+    }
+
+    /**
+     * Accessor function that returns the effectID of the expired effect, as known by the authority.
+     *
+     * @return the effectID of the expired effect
+     */
+    public String getEffectID() {
+        return effectID;
+    }
+
+    /**
+     * Accessor function that returns the item that provided the expired effect.
+     *
+     * @return an EntityRef pointing to the item, or EntityRef.NULL if it isn't known
+     */
+    public EntityRef getItem() {
+        return item;
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.event;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.OwnerEvent;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This event is sent to the owner of an entity after the finite equipment effects of a newly equipped item have been
+ * scheduled to expire. It carries the absolute game time at which each effect expires, so that the client can count
+ * the remaining time down by itself.
+ */
+@OwnerEvent
+public class EquipmentEffectsScheduledEvent implements Event {
+    private EntityRef item = EntityRef.NULL;
+    private List<String> effectTypes = new ArrayList<>();
+    private List<Long> expiryTimes = new ArrayList<>();
+
+    public EquipmentEffectsScheduledEvent() {
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param item        the equipped item that provides the effects
+     * @param effectTypes the effect type (and subtype, if any) of each finite effect, in its String form
+     * @param expiryTimes the game time (in ms) at which each of these effects expires
+     */
+    public EquipmentEffectsScheduledEvent(EntityRef item, List<String> effectTypes, List<Long> expiryTimes) {
+        this.item = item;
+        this.effectTypes = effectTypes;
+        this.expiryTimes = expiryTimes;
+    }
+
+    /**
+     * Accessor function that returns the equipped item that provides the effects.
+     *
+     * @return an EntityRef pointing to the item
+     */
+    public EntityRef getItem() {
+        return item;
+    }
+
+    /**
+     * Accessor function that returns the effect type (and subtype, if any) of each finite effect.
+     *
+     * @return the String forms of the effect types, see EquipmentEffectKeys
+     */
+    public List<String> getEffectTypes() {
+        return effectTypes;
+    }
+
+    /**
+     * Accessor function that returns when each effect expires, in the same order as {@link #getEffectTypes()}.
+     *
+     * @return the game times (in ms) at which the effects expire
+     */
+    public List<Long> getExpiryTimes() {
+        return expiryTimes;
+    }
+}
@@ -0,0 +1,15 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.event;
+
+import org.terasology.engine.network.ServerEvent;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+/**
+ * This event is sent by a client to its character when the equipment inventory is needed (for example, to show it in
+ * the character screen) but hasn't been created yet. The equipment inventory is only created on first use, so that
+ * spawning characters stays cheap.
+ */
+@ServerEvent
+public class EquipmentInventoryRequest implements Event {
+}
@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.event;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.OwnerEvent;
+import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.system.EquipmentItemIds;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This event is sent once after an entity has equipped and unequipped several items as a single change, instead of
+ * one {@link EquipItemEvent} or {@link UnequipItemEvent} per item.
+ */
+@OwnerEvent
+public class LoadoutChangedEvent implements Event {
+    private EntityRef character;
+    private List<EntityRef> equippedItems = new ArrayList<>();
+    private List<EntityRef> unequippedItems = new ArrayList<>();
+    private List<EquipmentSlot> changedSlots = new ArrayList<>();
+    private List<String> unequippedEffectIDs = new ArrayList<>();
+
+    public LoadoutChangedEvent() {
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param character       an EntityRef pointing to the character whose loadout has changed
+     * @param equippedItems   the items that have been equipped
+     * @param unequippedItems the items that have been unequipped
+     * @param changedSlots    the equipment slots whose contents have changed
+     */
+    public LoadoutChangedEvent(EntityRef character, List<EntityRef> equippedItems, List<EntityRef> unequippedItems,
+                               List<EquipmentSlot> changedSlots) {
+        this.character = character;
+        this.equippedItems = equippedItems;
+        this.unequippedItems = unequippedItems;
+        this.changedSlots = changedSlots;
+        for (EntityRef item : unequippedItems) {
+            unequippedEffectIDs.add(EquipmentItemIds.of(item));
+        }
+    }
+
+    /**
+     * Accessor function that returns the character whose loadout has changed.
+     *
+     * @return an EntityRef pointing to the character whose loadout has changed
+     */
+    public EntityRef getCharacter() {
+        return character;
+    }
+
+    /**
+     * Accessor function that returns the items that have been equipped.
+     *
+     * @return the equipped items, in the order they were equipped
+     */
+    public List<EntityRef> getEquippedItems() {
+        return equippedItems;
+    }
+
+    /**
+     * Accessor function that returns the items that have been unequipped.
+     *
+     * @return the unequipped items, in the order they were unequipped
+     */
+    public List<EntityRef> getUnequippedItems() {
+        return unequippedItems;
+    }
+
+    /**
+     * Accessor function that returns the equipment slots whose contents have changed.
+     *
+     * @return the changed equipment slots, each listed once
+     */
+    public List<EquipmentSlot> getChangedSlots() {
+        return changedSlots;
+    }
+
+    /**
+     * Accessor function that returns the effectIDs of the unequipped items' equipment effects, as known by the
+     * sender. A client that received its list of equipment effects after an item was equipped knows its effects by
+     * this id, as entity ids differ between server and client.
+     *
+     * @return the effectIDs on the sender, in the same order as the unequipped items
+     */
+    public List<String> getUnequippedEffectIDs() {
+        return unequippedEffectIDs;
+    }
+}
@@ -18,6 +18,7 @@ package org.terasology.equipment.event;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.network.OwnerEvent;
 import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.system.EquipmentItemIds;
 import org.terasology.gestalt.entitysystem.event.Event;
 
 /**
@@ -28,6 +29,7 @@ public class UnequipItemEvent implements Event {
     private EntityRef character;
     private EntityRef item;
     private EquipmentSlot equipmentSlot;
+    private String effectID;
 
     public UnequipItemEvent() {
     }
@@ -43,6 +45,7 @@ public class UnequipItemEvent implements Event {
         this.character = character;
         this.item = item;
         this.equipmentSlot = equipmentSlot;
+        this.effectID = EquipmentItemIds.of(item);
     }
 
     /**
@@ -71,4 +74,15 @@ public class UnequipItemEvent implements Event {
     public EquipmentSlot getEquipmentSlot() {
         return equipmentSlot;
     }
+
+    /**
+     * Accessor function that returns the effectID of the item's equipment effects, as known by the sender. A client
+     * that received its list of equipment effects after the item was equipped knows the effects by this id, as entity
+     * ids differ between server and client.
+     *
+     * @return the effectID of the item's equipment effects on the sender
+     */
+    public String getEffectID() {
+        return effectID;
+    }
 }
@@ -0,0 +1,45 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.metrics;
+
+/**
+ * The operations of the equipment systems that are measured by the EquipmentMetricsSystem.
+ */
+public enum EquipmentMetric {
+    /** Equipping a single item. */
+    EQUIP("equip", true),
+    /** Unequipping a single item. */
+    UNEQUIP("unequip", true),
+    /** Changing several items at once, or switching loadouts. */
+    LOADOUT_CHANGE("loadoutChange", true),
+    /** Combining all equipment effects of one type into a single effect. */
+    EFFECT_COMBINE("effectCombine", true),
+    /** One of the BeforeDamagedEvent handlers of the equipment systems. */
+    DAMAGE_HOOK("damageHook", true),
+    /** One check of the authority system for expired equipment effects. */
+    AUTHORITY_TICK("authorityTick", true),
+    /** The equipment effects looked at by the authority system while checking for expired ones. */
+    AUTHORITY_EFFECTS_VISITED("authorityEffectsVisited", false);
+
+    private final String displayName;
+    private final boolean timed;
+
+    EquipmentMetric(String displayName, boolean timed) {
+        this.displayName = displayName;
+        this.timed = timed;
+    }
+
+    /**
+     * @return the name under which this metric is shown and reported
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return whether this metric records durations, rather than only counting
+     */
+    public boolean isTimed() {
+        return timed;
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The running statistics of one metric: how often it was recorded, the total of all recorded values, and a histogram
+ * of those values with one bucket per power of two.
+ *
+ * Recording only updates striped counters without locking, so it is cheap enough to leave enabled.
+ */
+public class EquipmentMetricStats {
+    /** One bucket for zero, and one for each power of two a positive long can reach. */
+    private static final int BUCKET_COUNT = 64;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    public EquipmentMetricStats() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one occurrence with the given value, e.g. its duration in nanoseconds.
+     *
+     * @param value the value to record, which is treated as 0 if negative
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        count.increment();
+        total.add(v);
+        max.accumulate(v);
+        // Bucket i holds the values from 2^(i-1) up to 2^i - 1.
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(v)].increment();
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public void reset() {
+        count.reset();
+        total.reset();
+        max.reset();
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * @return a copy of the current statistics
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long bucketTotal = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            bucketTotal += counts[i];
+        }
+        return new Snapshot(count.sum(), total.sum(), max.get(), percentile(counts, bucketTotal, 0.5),
+                percentile(counts, bucketTotal, 0.99));
+    }
+
+    /**
+     * Returns the upper bound of the bucket that contains the given percentile.
+     */
+    private static long percentile(long[] counts, long bucketTotal, double percentile) {
+        long rank = (long) Math.ceil(bucketTotal * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The statistics of one metric at a point in time. Percentiles are approximate, as they are the upper bound of
+     * the histogram bucket they fall into.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long total;
+        private final long max;
+        private final long p50;
+        private final long p99;
+
+        private Snapshot(long count, long total, long max, long p50, long p99) {
+            this.count = count;
+            this.total = total;
+            this.max = max;
+            this.p50 = p50;
+            this.p99 = p99;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        /**
+         * @return the average recorded value, or 0 if nothing was recorded
+         */
+        public long getMean() {
+            return count == 0 ? 0 : total / count;
+        }
+    }
+}
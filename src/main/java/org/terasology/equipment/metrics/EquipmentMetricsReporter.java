@@ -0,0 +1,19 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.metrics;
+
+import java.util.Map;
+
+/**
+ * Receives the metrics of the equipment systems at a regular interval, e.g. to forward them to external monitoring.
+ * Register reporters with the EquipmentMetricsSystem.
+ */
+@FunctionalInterface
+public interface EquipmentMetricsReporter {
+    /**
+     * Called with the statistics of every metric since the game started (or since they were last reset).
+     *
+     * @param snapshot the statistics of each metric
+     */
+    void report(Map<EquipmentMetric, EquipmentMetricStats.Snapshot> snapshot);
+}
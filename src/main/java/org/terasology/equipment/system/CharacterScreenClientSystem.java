@@ -17,20 +17,36 @@ package org.terasology.equipment.system;
 
 import org.terasology.engine.audio.AudioManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.players.LocalPlayer;
 import org.terasology.engine.network.ClientComponent;
 import org.terasology.engine.registry.CoreRegistry;
 import org.terasology.engine.registry.In;
 import org.terasology.engine.rendering.nui.NUIManager;
 import org.terasology.engine.utilities.Assets;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentSlot;
 import org.terasology.equipment.event.CharacterScreenButton;
+import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.LoadoutChangedEvent;
+import org.terasology.equipment.event.OnPlayerWithEquipSpawnedEvent;
+import org.terasology.equipment.event.UnequipItemEvent;
+import org.terasology.equipment.ui.CharacterScreenWindow;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.input.ButtonState;
+import org.terasology.physicalstats.event.OnPhysicalStatChangedEvent;
+import org.terasology.physicalstats.event.OnPhysicalStatsModifierAddedEvent;
+import org.terasology.physicalstats.event.OnPhysicalStatsModifierRemovedEvent;
 
 /**
  * Client system that handles how equipment-related information is displayed.
+ *
+ * All interaction with the character screen lives here, so that servers never touch the UI. Only changes to the local
+ * player's character are forwarded to the screen.
  */
 @RegisterSystem(RegisterMode.CLIENT)
 public class CharacterScreenClientSystem extends BaseComponentSystem {
@@ -39,6 +55,9 @@ public class CharacterScreenClientSystem extends BaseComponentSystem {
     @In
     private NUIManager nuiManager;
 
+    @In
+    private LocalPlayer localPlayer;
+
     /**
      * This method is executed when the player presses the 'character screen' button.
      *
@@ -53,4 +72,129 @@ public class CharacterScreenClientSystem extends BaseComponentSystem {
             CoreRegistry.get(AudioManager.class).playSound(Assets.getSound("Equipment:cloth-inventory").get(), 1.0f);
         }
     }
+
+    /**
+     * Reinitializes the character screen once the local player's character has spawned, so that the labels and
+     * references are set up properly. The equipment inventory is only requested once the screen is opened.
+     *
+     * @param event  the event corresponding to the spawning of the player
+     * @param player the player's character
+     * @param eq     the player's equipment component
+     */
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onPlayerWithEquipSpawned(OnPlayerWithEquipSpawnedEvent event, EntityRef player,
+                                         EquipmentComponent eq) {
+        CharacterScreenWindow screen = getScreenFor(player);
+
+        // If the screen hasn't been created yet, it will initialize itself when it's opened for the first time.
+        if (screen != null) {
+            screen.reInit();
+            screen.updateStats();
+        }
+    }
+
+    /**
+     * Defines what to do when a stat of an entity is changed.
+     *
+     * @param event  the event corresponding to the changing of the stat
+     * @param entity the entity who's stat has been changed
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onStatChanged(OnPhysicalStatChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        markAttributesDirty(entity);
+    }
+
+    /**
+     * Defines what to do when a physical stat modifier is added to an entity.
+     *
+     * @param event  the event corresponding to the adding of the physical stat modifier
+     * @param entity the entity to whom the stat modifier has been added
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onStatChanged(OnPhysicalStatsModifierAddedEvent event, EntityRef entity, EquipmentComponent eq) {
+        markAttributesDirty(entity);
+    }
+
+    /**
+     * Defines what to do when a physical stat modifier is removed from an entity.
+     *
+     * @param event  the event corresponding to the removal of the physical stat modifier
+     * @param entity the entity from whom the stat modifier has been removed
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onStatChanged(OnPhysicalStatsModifierRemovedEvent event, EntityRef entity, EquipmentComponent eq) {
+        markAttributesDirty(entity);
+    }
+
+    /**
+     * Defines what to do when an item is equipped by an entity.
+     *
+     * @param event  the event corresponding to the equipment of the item
+     * @param entity the entity who has equipped the item
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquipChanged(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        CharacterScreenWindow screen = getScreenFor(entity);
+        if (screen != null) {
+            screen.markSlotDirty(event.getEquipmentSlot());
+        }
+    }
+
+    /**
+     * Defines what to do when an item is unequipped by an entity.
+     *
+     * @param event  the event corresponding to the unequipment of the item
+     * @param entity the entity who has unequipped the item
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquipChanged(UnequipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        CharacterScreenWindow screen = getScreenFor(entity);
+        if (screen != null) {
+            screen.markSlotDirty(event.getEquipmentSlot());
+        }
+    }
+
+    /**
+     * Defines what to do when several items are equipped and unequipped by an entity at once.
+     *
+     * @param event  the event corresponding to the change of the loadout
+     * @param entity the entity whose loadout has changed
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquipChanged(LoadoutChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        CharacterScreenWindow screen = getScreenFor(entity);
+        if (screen != null) {
+            for (EquipmentSlot equipmentSlot : event.getChangedSlots()) {
+                screen.markSlotDirty(equipmentSlot);
+            }
+        }
+    }
+
+    private void markAttributesDirty(EntityRef entity) {
+        CharacterScreenWindow screen = getScreenFor(entity);
+        if (screen != null) {
+            screen.markAttributesDirty();
+        }
+    }
+
+    /**
+     * Returns the character screen if the given entity is the local player's character.
+     *
+     * @param entity the entity whose equipment or stats have changed
+     * @return the character screen, or null if the entity isn't the local player's character or the screen doesn't
+     *         exist yet
+     */
+    private CharacterScreenWindow getScreenFor(EntityRef entity) {
+        if (!entity.equals(localPlayer.getCharacterEntity())) {
+            return null;
+        }
+        return (CharacterScreenWindow) nuiManager.getScreen(CHARACTER_SCREEN_NAME);
+    }
 }
@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.equipment.component.EquipmentItemComponent;
+
+/**
+ * The stats, slot location and effects of an equipment prefab, compiled once by the
+ * {@link EquipmentArchetypeRegistry} so that they don't have to be read off entities or prefabs again.
+ *
+ * Items created from the prefab start out with these stats, but may change them at runtime. Use
+ * {@link #matches(EquipmentItemComponent)} to check whether an item still has its prefab's stats.
+ */
+public final class EquipmentArchetype {
+    private final Prefab prefab;
+    private final int level;
+    private final int quality;
+    private final String type;
+    private final String location;
+    private final int attack;
+    private final int defense;
+    private final int weight;
+    private final int speed;
+    private final EquipmentEffectManifest effects;
+
+    EquipmentArchetype(Prefab prefab, EquipmentItemComponent eqItem, EquipmentEffectManifest effects) {
+        this.prefab = prefab;
+        this.level = eqItem.level;
+        this.quality = eqItem.quality;
+        this.type = eqItem.type == null ? "" : eqItem.type;
+        this.location = eqItem.location;
+        this.attack = eqItem.attack;
+        this.defense = eqItem.defense;
+        this.weight = eqItem.weight;
+        this.speed = eqItem.speed;
+        this.effects = effects;
+    }
+
+    /**
+     * Checks whether an equipment item component still has the stats of this archetype.
+     *
+     * @param eqItem the equipment item component of an item created from this archetype's prefab
+     * @return true if none of its stats differ from this archetype
+     */
+    public boolean matches(EquipmentItemComponent eqItem) {
+        return eqItem.level == level && eqItem.quality == quality && eqItem.attack == attack
+                && eqItem.defense == defense && eqItem.weight == weight && eqItem.speed == speed
+                && location.equals(eqItem.location) && type.equals(eqItem.type == null ? "" : eqItem.type);
+    }
+
+    public Prefab getPrefab() {
+        return prefab;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public int getAttack() {
+        return attack;
+    }
+
+    public int getDefense() {
+        return defense;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return which equipment effect components the prefab has
+     */
+    public EquipmentEffectManifest getEffects() {
+        return effects;
+    }
+}
@@ -0,0 +1,148 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentItemComponent;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This system compiles every equipment prefab into an {@link EquipmentArchetype} on startup, and indexes them by
+ * level, slot location and type.
+ *
+ * Prefabs with an equipment item component that can't be equipped (no slot location, or a negative level, quality or
+ * weight) are rejected with a warning, instead of failing later when an item created from them is equipped.
+ */
+@RegisterSystem
+@Share(EquipmentArchetypeRegistry.class)
+public class EquipmentArchetypeRegistry extends BaseComponentSystem {
+    private static final Logger logger = LoggerFactory.getLogger(EquipmentArchetypeRegistry.class);
+
+    @In
+    private PrefabManager prefabManager;
+
+    private final Map<Prefab, EquipmentArchetype> byPrefab = new HashMap<>();
+    private final Map<Integer, List<EquipmentArchetype>> byLevel = new HashMap<>();
+    private final Map<String, List<EquipmentArchetype>> byLocation = new HashMap<>();
+    private final Map<String, List<EquipmentArchetype>> byType = new HashMap<>();
+
+    /**
+     * Compiles the archetypes of all equipment prefabs.
+     */
+    @Override
+    public void initialise() {
+        long start = System.nanoTime();
+        int rejected = 0;
+
+        for (Prefab prefab : prefabManager.listPrefabs(EquipmentItemComponent.class)) {
+            EquipmentItemComponent eqItem = prefab.getComponent(EquipmentItemComponent.class);
+            String problem = validate(eqItem);
+            if (problem != null) {
+                logger.warn("Rejecting equipment prefab {}: {}", prefab.getName(), problem);
+                rejected++;
+                continue;
+            }
+
+            EquipmentArchetype archetype = new EquipmentArchetype(prefab, eqItem, compileEffects(prefab));
+            byPrefab.put(prefab, archetype);
+            byLevel.computeIfAbsent(archetype.getLevel(), level -> new ArrayList<>()).add(archetype);
+            byLocation.computeIfAbsent(archetype.getLocation(), location -> new ArrayList<>()).add(archetype);
+            byType.computeIfAbsent(archetype.getType(), type -> new ArrayList<>()).add(archetype);
+        }
+
+        freeze(byLevel);
+        freeze(byLocation);
+        freeze(byType);
+        logger.info("Compiled {} equipment archetypes ({} rejected) in {} ms", byPrefab.size(), rejected,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @param prefab an equipment prefab
+     * @return the archetype of the prefab, or null if it isn't a (valid) equipment prefab
+     */
+    public EquipmentArchetype get(Prefab prefab) {
+        return prefab == null ? null : byPrefab.get(prefab);
+    }
+
+    /**
+     * @param item an equipment item
+     * @return the archetype of the prefab the item was created from, or null if there is none
+     */
+    public EquipmentArchetype get(EntityRef item) {
+        return get(item.getParentPrefab());
+    }
+
+    /**
+     * @return the archetypes of all valid equipment prefabs
+     */
+    public Collection<EquipmentArchetype> getAll() {
+        return Collections.unmodifiableCollection(byPrefab.values());
+    }
+
+    /**
+     * @param level an equipment level
+     * @return the archetypes of the given level
+     */
+    public List<EquipmentArchetype> getByLevel(int level) {
+        return byLevel.getOrDefault(level, Collections.emptyList());
+    }
+
+    /**
+     * @param location an equipment slot type, like "Weapon" or "Ring"
+     * @return the archetypes equippable in slots of the given type
+     */
+    public List<EquipmentArchetype> getByLocation(String location) {
+        return byLocation.getOrDefault(location, Collections.emptyList());
+    }
+
+    /**
+     * @param type an equipment type, like "Melee Weapon"
+     * @return the archetypes of the given type
+     */
+    public List<EquipmentArchetype> getByType(String type) {
+        return byType.getOrDefault(type, Collections.emptyList());
+    }
+
+    private static String validate(EquipmentItemComponent eqItem) {
+        if (eqItem.location == null || eqItem.location.trim().isEmpty()) {
+            return "no location";
+        }
+        if (eqItem.level < 0 || eqItem.quality < 0 || eqItem.weight < 0) {
+            return "negative level, quality or weight";
+        }
+        return null;
+    }
+
+    private static EquipmentEffectManifest compileEffects(Prefab prefab) {
+        List<Class> effectClasses = new ArrayList<>();
+        for (Component component : prefab.iterateComponents()) {
+            if (component instanceof EquipmentEffectComponent) {
+                effectClasses.add(component.getClass());
+            }
+        }
+        return effectClasses.isEmpty()
+                ? EquipmentEffectManifest.EMPTY
+                : EquipmentEffectManifest.compile(effectClasses, prefab::getComponent);
+    }
+
+    private static <K> void freeze(Map<K, List<EquipmentArchetype>> index) {
+        index.replaceAll((key, archetypes) -> Collections.unmodifiableList(archetypes));
+    }
+}
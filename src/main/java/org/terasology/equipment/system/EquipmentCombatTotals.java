@@ -0,0 +1,218 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentDamageTypes;
+import org.terasology.equipment.component.EquipmentItemComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps a running total of the attack and defense of every item equipped by each character, so that the damage hooks
+ * can read them without walking the equipment slots on every hit. Defense is kept per damage type, indexed by
+ * {@link EquipmentDamageTypes}.
+ *
+ * The totals are maintained incrementally: each equipped item remembers what it contributed, so that it can be
+ * subtracted again when the item is unequipped or its stats change.
+ */
+public class EquipmentCombatTotals {
+    /** The index of the damage type that the 'defense' stat of equipment items protects against. */
+    public static final int PHYSICAL_DAMAGE = EquipmentDamageTypes.indexOf("physicalDamage");
+
+    /** The combat totals of each character that has been seen equipping something. */
+    private final Map<EntityRef, Totals> characters = new HashMap<>();
+
+    /** What each equipped item currently contributes, and to whom. */
+    private final Map<EntityRef, Contribution> items = new HashMap<>();
+
+    /**
+     * Returns the combat totals of a character, building them from its equipment slots on first access.
+     *
+     * @param character the character whose totals are requested
+     * @return the totals, or null if the character cannot equip items
+     */
+    public Totals get(EntityRef character) {
+        Totals totals = characters.get(character);
+        if (totals == null) {
+            EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+            if (eq == null) {
+                return null;
+            }
+            totals = rebuild(character, eq);
+        }
+        return totals;
+    }
+
+    /**
+     * Recalculates the totals of a character from scratch, using its currently equipped items.
+     *
+     * @param character the character whose totals should be rebuilt
+     * @param eq        the equipment component of the character
+     * @return the rebuilt totals
+     */
+    public Totals rebuild(EntityRef character, EquipmentComponent eq) {
+        evict(character);
+        Totals totals = new Totals();
+        characters.put(character, totals);
+
+        for (EquipmentSlot slot : eq.equipmentSlots) {
+            for (EntityRef item : slot.itemRefs) {
+                if (item != EntityRef.NULL) {
+                    add(character, item);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Adds the stats of a newly equipped item to the totals of a character.
+     *
+     * @param character the character who equipped the item
+     * @param item      the equipped item
+     */
+    public void add(EntityRef character, EntityRef item) {
+        // A character loaded with items already equipped has no totals yet, so they have to be built from all of its
+        // slots rather than from this item alone.
+        Totals totals = characters.get(character);
+        if (totals == null) {
+            totals = get(character);
+            if (totals == null) {
+                totals = new Totals();
+                characters.put(character, totals);
+            }
+        }
+        remove(item);
+
+        EquipmentItemComponent eqItem = item.getComponent(EquipmentItemComponent.class);
+        if (eqItem == null) {
+            return;
+        }
+
+        Contribution contribution = new Contribution(character, eqItem);
+        items.put(item, contribution);
+        totals.attack += contribution.attack;
+        for (int i = 0; i < contribution.defenseTypes.length; i++) {
+            totals.addDefense(contribution.defenseTypes[i], contribution.defenses[i]);
+        }
+    }
+
+    /**
+     * Subtracts the stats of an unequipped item from the totals of whoever had it equipped.
+     *
+     * @param item the unequipped item
+     */
+    public void remove(EntityRef item) {
+        Contribution contribution = items.remove(item);
+        if (contribution == null) {
+            return;
+        }
+
+        Totals totals = characters.get(contribution.owner);
+        if (totals != null) {
+            totals.attack -= contribution.attack;
+            for (int i = 0; i < contribution.defenseTypes.length; i++) {
+                totals.addDefense(contribution.defenseTypes[i], -contribution.defenses[i]);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the stats of an item, updating the totals of its owner if it is currently equipped.
+     *
+     * @param item the item whose stats have changed
+     */
+    public void refresh(EntityRef item) {
+        Contribution contribution = items.get(item);
+        if (contribution != null) {
+            add(contribution.owner, item);
+        }
+    }
+
+    /**
+     * Forgets everything known about a character and the items it had equipped.
+     *
+     * @param character the character to forget
+     */
+    public void evict(EntityRef character) {
+        if (characters.remove(character) != null) {
+            items.values().removeIf(contribution -> contribution.owner.equals(character));
+        }
+    }
+
+    /**
+     * The summed combat stats of all items equipped by one character.
+     */
+    public static class Totals {
+        private int attack;
+
+        /** The summed defense against each damage type, by damage type index. */
+        private int[] defense = new int[EquipmentDamageTypes.size()];
+
+        public int getAttack() {
+            return attack;
+        }
+
+        /**
+         * @return the summed defense against physical damage
+         */
+        public int getDefense() {
+            return getDefense(PHYSICAL_DAMAGE);
+        }
+
+        /**
+         * @param damageType the index of a damage type
+         * @return the summed defense against that damage type
+         */
+        public int getDefense(int damageType) {
+            return damageType >= 0 && damageType < defense.length ? defense[damageType] : 0;
+        }
+
+        private void addDefense(int damageType, int amount) {
+            if (damageType >= defense.length) {
+                defense = Arrays.copyOf(defense, Math.max(damageType + 1, EquipmentDamageTypes.size()));
+            }
+            defense[damageType] += amount;
+        }
+    }
+
+    /**
+     * What one equipped item contributes to the totals of its owner. The defense is kept as a sparse vector of
+     * damage type indices and amounts, as most items only defend against physical damage.
+     */
+    private static final class Contribution {
+        private final EntityRef owner;
+        private final int attack;
+        private final int[] defenseTypes;
+        private final int[] defenses;
+
+        private Contribution(EntityRef owner, EquipmentItemComponent eqItem) {
+            this.owner = owner;
+            this.attack = eqItem.attack;
+
+            int count = 1 + (eqItem.defenseByDamageType == null ? 0 : eqItem.defenseByDamageType.size());
+            int[] types = new int[count];
+            int[] amounts = new int[count];
+            types[0] = PHYSICAL_DAMAGE;
+            amounts[0] = eqItem.defense;
+
+            int i = 1;
+            if (eqItem.defenseByDamageType != null) {
+                for (Map.Entry<String, Integer> defense : eqItem.defenseByDamageType.entrySet()) {
+                    if (defense.getKey() != null && defense.getValue() != null) {
+                        types[i] = EquipmentDamageTypes.indexOf(defense.getKey());
+                        amounts[i] = defense.getValue();
+                        i++;
+                    }
+                }
+            }
+            this.defenseTypes = i == count ? types : Arrays.copyOf(types, i);
+            this.defenses = i == count ? amounts : Arrays.copyOf(amounts, i);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.alterationEffects.AlterationEffects;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentStackingPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The running combination of all equipment effects of one type (and subtype if any) on one entity, following an
+ * {@link EquipmentStackingPolicy}.
+ *
+ * Adding or removing a contributing effect updates the running sums in constant time. The strongest effect and the
+ * first effect to run out are kept in heaps, from which removed effects are dropped lazily when they reach the top, or
+ * all at once when they outnumber the live ones.
+ * Effects whose time is up are dropped the next time the combination is requested.
+ */
+class EquipmentEffectAggregate {
+    private final EquipmentStackingPolicy policy;
+    private final String id;
+
+    /** The effects currently contributing, by effectID. */
+    private final Map<String, Contributor> contributors = new HashMap<>();
+
+    /** The contributors by descending magnitude. */
+    private final PriorityQueue<Contributor> strongest =
+            new PriorityQueue<>((a, b) -> Float.compare(b.magnitude, a.magnitude));
+
+    /** The contributors with a finite duration, by ascending expiry time. */
+    private final PriorityQueue<Contributor> expiries =
+            new PriorityQueue<>((a, b) -> Long.compare(a.expiresAt, b.expiresAt));
+
+    /** How many removed contributors are still in each heap. */
+    private int deadInStrongest;
+    private int deadInExpiries;
+
+    private float sum;
+    private float sumOfSquares;
+
+    /** The combination last built, or null if a contributor has changed since. */
+    private EquipmentEffectComponent combined;
+
+    /**
+     * @param policy how the contributing effects are combined, or null to add them up
+     * @param id     the subtype of the effects, if any
+     */
+    EquipmentEffectAggregate(EquipmentStackingPolicy policy, String id) {
+        this.policy = policy == null ? EquipmentStackingPolicy.SUM : policy;
+        this.id = id == null ? "" : id;
+    }
+
+    /**
+     * Adds an effect to the combination, replacing any effect with the same effectID. Effects that don't affect the
+     * user, or whose duration is 0, don't contribute.
+     *
+     * @param eec the effect to add
+     * @param now the current game time (in milliseconds)
+     */
+    void add(EquipmentEffectComponent eec, long now) {
+        remove(eec.effectID);
+        if (!eec.affectsUser || eec.getRemainingDuration(now) == 0) {
+            return;
+        }
+
+        long expiresAt = 0;
+        if (eec.duration != AlterationEffects.DURATION_INDEFINITE) {
+            expiresAt = eec.expiresAt != 0 ? eec.expiresAt : now + eec.duration;
+        }
+
+        Contributor contributor = new Contributor(eec.effectID, eec.magnitude, expiresAt);
+        contributors.put(contributor.effectID, contributor);
+        strongest.add(contributor);
+        if (contributor.expiresAt != 0) {
+            expiries.add(contributor);
+        }
+        sum += contributor.magnitude;
+        sumOfSquares += contributor.magnitude * contributor.magnitude;
+        combined = null;
+    }
+
+    /**
+     * Removes an effect from the combination.
+     *
+     * @param effectID the effectID of the effect to remove
+     */
+    void remove(String effectID) {
+        Contributor contributor = effectID == null ? null : contributors.remove(effectID);
+        if (contributor != null) {
+            contributor.removed = true;
+            deadInStrongest++;
+            if (contributor.expiresAt != 0) {
+                deadInExpiries++;
+            }
+            compact();
+            sum -= contributor.magnitude;
+            sumOfSquares -= contributor.magnitude * contributor.magnitude;
+            combined = null;
+
+            // Don't let rounding errors pile up over many changes.
+            if (contributors.isEmpty()) {
+                sum = 0;
+                sumOfSquares = 0;
+            }
+        }
+    }
+
+    /**
+     * @return whether no effect contributes to the combination
+     */
+    boolean isEmpty() {
+        return contributors.isEmpty();
+    }
+
+    /**
+     * Returns the combined effect, after dropping the contributors whose time is up.
+     *
+     * @param now the current game time (in milliseconds)
+     * @return the combined effect, or null if no effect contributes
+     */
+    EquipmentEffectComponent get(long now) {
+        Contributor first = peekExpiries();
+        while (first != null && first.expiresAt <= now) {
+            remove(first.effectID);
+            first = peekExpiries();
+        }
+
+        Contributor top = peekStrongest();
+        if (top == null) {
+            return null;
+        }
+        if (combined != null) {
+            return combined;
+        }
+
+        combined = new EquipmentEffectComponent();
+        combined.id = id;
+        combined.affectsUser = true;
+        combined.affectsEnemies = false;
+
+        Contributor lasting = policy == EquipmentStackingPolicy.UNIQUE_STRONGEST ? top : first;
+        if (lasting == null || lasting.expiresAt == 0) {
+            combined.duration = AlterationEffects.DURATION_INDEFINITE;
+            combined.expiresAt = 0;
+            combined.effectID = top.effectID;
+        } else {
+            combined.duration = (int) Math.max(0, lasting.expiresAt - now);
+            combined.expiresAt = lasting.expiresAt;
+            combined.effectID = lasting.effectID;
+        }
+
+        switch (policy) {
+            case MAX:
+            case UNIQUE_STRONGEST:
+                combined.magnitude = top.magnitude;
+                break;
+            case DIMINISHING:
+                combined.magnitude = Math.copySign((float) Math.sqrt(Math.max(0, sumOfSquares)), sum);
+                break;
+            default:
+                combined.magnitude = sum;
+                break;
+        }
+        return combined;
+    }
+
+    private Contributor peekStrongest() {
+        Contributor top = strongest.peek();
+        while (top != null && top.removed) {
+            strongest.poll();
+            deadInStrongest--;
+            top = strongest.peek();
+        }
+        return top;
+    }
+
+    private Contributor peekExpiries() {
+        Contributor first = expiries.peek();
+        while (first != null && first.removed) {
+            expiries.poll();
+            deadInExpiries--;
+            first = expiries.peek();
+        }
+        return first;
+    }
+
+    /**
+     * Drops the removed contributors from a heap once they outnumber the live ones in it, so that a long-lived
+     * combination whose removed effects never reach the top doesn't keep growing.
+     */
+    private void compact() {
+        if (deadInStrongest > strongest.size() - deadInStrongest) {
+            strongest.removeIf(contributor -> contributor.removed);
+            deadInStrongest = 0;
+        }
+        if (deadInExpiries > expiries.size() - deadInExpiries) {
+            expiries.removeIf(contributor -> contributor.removed);
+            deadInExpiries = 0;
+        }
+    }
+
+    /**
+     * One effect contributing to the combination.
+     */
+    private static final class Contributor {
+        private final String effectID;
+        private final float magnitude;
+
+        /** The game time at which the effect runs out, or 0 if it lasts indefinitely. */
+        private final long expiresAt;
+        private boolean removed;
+
+        private Contributor(String effectID, float magnitude, long expiresAt) {
+            this.effectID = effectID;
+            this.magnitude = magnitude;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.equipment.component.EquipmentEffectComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lists which equipment effect components are present on an item (or on the prefab it was created from), so that the
+ * effect hooks only have to look at the effects an item actually has.
+ */
+public final class EquipmentEffectManifest {
+    /** The manifest of an item without any equipment effects. */
+    public static final EquipmentEffectManifest EMPTY =
+            new EquipmentEffectManifest(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    private final List<Class> effects;
+    private final List<Class> selfEffects;
+    private final List<Class> enemyEffects;
+
+    private EquipmentEffectManifest(List<Class> effects, List<Class> selfEffects, List<Class> enemyEffects) {
+        this.effects = effects;
+        this.selfEffects = selfEffects;
+        this.enemyEffects = enemyEffects;
+    }
+
+    /**
+     * Compiles a manifest by checking which of the known effect classes are present.
+     *
+     * @param effectClasses the known equipment effect component classes
+     * @param lookup        returns the effect component of the given class, or null if it isn't present
+     * @return the compiled manifest, or {@link #EMPTY} if none of the effects are present
+     */
+    public static EquipmentEffectManifest compile(Iterable<Class> effectClasses, Function<Class, Object> lookup) {
+        List<Class> effects = new ArrayList<>();
+        List<Class> selfEffects = new ArrayList<>();
+        List<Class> enemyEffects = new ArrayList<>();
+
+        for (Class effectClass : effectClasses) {
+            Object component = lookup.apply(effectClass);
+            if (component instanceof EquipmentEffectComponent) {
+                EquipmentEffectComponent eec = (EquipmentEffectComponent) component;
+                effects.add(effectClass);
+                if (eec.affectsUser) {
+                    selfEffects.add(effectClass);
+                }
+                if (eec.affectsEnemies) {
+                    enemyEffects.add(effectClass);
+                }
+            }
+        }
+
+        if (effects.isEmpty()) {
+            return EMPTY;
+        }
+        return new EquipmentEffectManifest(Collections.unmodifiableList(effects),
+                Collections.unmodifiableList(selfEffects), Collections.unmodifiableList(enemyEffects));
+    }
+
+    /**
+     * @return every equipment effect component class present
+     */
+    public List<Class> getEffects() {
+        return effects;
+    }
+
+    /**
+     * @return the effect component classes that affect the entity equipping the item
+     */
+    public List<Class> getSelfEffects() {
+        return selfEffects;
+    }
+
+    /**
+     * @return the effect component classes that affect enemies damaged by the item
+     */
+    public List<Class> getEnemyEffects() {
+        return enemyEffects;
+    }
+
+    /**
+     * @return whether there are no equipment effects at all
+     */
+    public boolean isEmpty() {
+        return effects.isEmpty();
+    }
+}
@@ -19,20 +19,41 @@ import org.terasology.alterationEffects.AlterationEffects;
 import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
 import org.terasology.engine.entitySystem.prefab.PrefabManager;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.registry.In;
+import org.terasology.equipment.component.EquipmentComponent;
 import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentEffectKeys;
 import org.terasology.equipment.component.EquipmentEffectsListComponent;
+import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.EquipmentEffectExpiredEvent;
+import org.terasology.equipment.event.EquipmentEffectsScheduledEvent;
+import org.terasology.equipment.event.LoadoutChangedEvent;
+import org.terasology.equipment.metrics.EquipmentMetric;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 /**
- * This authority system manages the duration updates of every equipment effect modifier in every entity.
+ * This authority system manages the expiry of every finite equipment effect modifier in every entity.
+ *
+ * Each finite effect carries the absolute game time at which it expires. These times are kept in a queue ordered by
+ * expiry, so every check only looks at the effects that are actually due, and effects are removed on time even if the
+ * server stalled for a while.
  */
 @RegisterSystem(value = RegisterMode.AUTHORITY)
 public class EquipmentEffectsAuthoritySystem extends BaseComponentSystem implements UpdateSubscriberSystem {
@@ -42,16 +63,22 @@ public class EquipmentEffectsAuthoritySystem extends BaseComponentSystem impleme
     /** Last time the list of regen effects were checked. */
     private long lastUpdated;
 
+    /** Every scheduled effect expiry, earliest first. Entries for effects that were removed early are skipped. */
+    private final PriorityQueue<ScheduledExpiry> expiries =
+            new PriorityQueue<>(Comparator.comparingLong(expiry -> expiry.expiresAt));
+
     @In
     private Time time;
     @In
     private EntityManager entityManager;
     @In
     private PrefabManager prefabManager;
+    @In
+    private EquipmentMetricsSystem metrics;
 
     /**
-     * For every update, check to see if the time's been over the CHECK_INTERVAL. If so, subtract the delta time from
-     * the remaining duration of each equipment effect modifier.
+     * For every update, check to see if the time's been over the CHECK_INTERVAL. If so, remove every equipment effect
+     * modifier whose expiry time has passed.
      *
      * @param delta The time (in seconds) since the last engine update.
      */
@@ -63,34 +90,182 @@ public class EquipmentEffectsAuthoritySystem extends BaseComponentSystem impleme
         if (currentTime >= lastUpdated + CHECK_INTERVAL) {
             // Set the lastUpdated time to be the currentTime.
             lastUpdated = currentTime;
+            long start = System.nanoTime();
+            int visited = 0;
+
+            while (!expiries.isEmpty() && expiries.peek().expiresAt <= currentTime) {
+                ScheduledExpiry expiry = expiries.poll();
+                visited++;
+                final EquipmentEffectsListComponent effectsList =
+                        expiry.entity.getComponent(EquipmentEffectsListComponent.class);
+                if (effectsList == null) {
+                    continue;
+                }
 
-            // Iterate through all of the entities that have equipment-based effects, and reduce the duration remaining
-            // on each (as long as they have a finite amount of time).
-            for (EntityRef entity : entityManager.getEntitiesWith(EquipmentEffectsListComponent.class)) {
-                final EquipmentEffectsListComponent effectsList = entity.getComponent(EquipmentEffectsListComponent.class);
-
-                // Search through each type of equipment-based AlterationEffects.
-                Iterator<Map.Entry<String, Map<String, EquipmentEffectComponent>>> typeIter = effectsList.effects.entrySet().iterator();
-                while (typeIter.hasNext()) {
-
-                    // Search through each equipment-based effect under this effect type.
-                    Iterator<Map.Entry<String, EquipmentEffectComponent>> effectIter = typeIter.next().getValue().entrySet().iterator();
-                    while (effectIter.hasNext()) {
-                        Map.Entry<String, EquipmentEffectComponent> effect = effectIter.next();
-
-                        // Only reduce the time remaining for this equipment effect if its not indefinite.
-                        if (effect.getValue().duration != AlterationEffects.DURATION_INDEFINITE) {
-                            effect.getValue().duration -= (int) (delta * 1000);
-
-                            // If this effect has no remaining time, remove it from the equipment effects map.
-                            if (effect.getValue().duration <= 0) {
-                                effect.getValue().duration = 0;
-                                effectIter.remove();
-                            }
-                        }
-                    }
+                // Only remove the effect if it is still the one that was scheduled, and it hasn't been rescheduled.
+                Map<String, EquipmentEffectComponent> effectsOfThisType = effectsList.getEffectsOfType(expiry.effectKey);
+                if (effectsOfThisType != null && effectsOfThisType.get(expiry.effectID) == expiry.effect
+                        && expiry.effect.expiresAt == expiry.expiresAt) {
+                    expiry.effect.duration = 0;
+                    expiry.effect.expiresAt = 0;
+                    effectsOfThisType.remove(expiry.effectID);
+                    expiry.entity.send(new EquipmentEffectExpiredEvent(EquipmentEffectKeys.nameOf(expiry.effectKey),
+                            expiry.effectID, getItem(expiry.effectID)));
                 }
             }
+
+            metrics.recordSince(EquipmentMetric.AUTHORITY_TICK, start);
+            metrics.record(EquipmentMetric.AUTHORITY_EFFECTS_VISITED, visited);
+        }
+    }
+
+    /**
+     * Once an item has been equipped and its effects added to the entity, schedule the expiry of its finite effects.
+     * This runs after the EquipmentEffectsSystem has added the effects.
+     *
+     * The list of equipment effects is looked up here rather than required by the handler, as the
+     * EquipmentEffectsSystem only adds it to the entity while handling the first item with effects.
+     *
+     * @param event         Event containing information about the item equipped.
+     * @param entity        Entity that equipped this item.
+     * @param eq            The equipment component of the entity.
+     */
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onEquip(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        EquipmentEffectsListComponent effectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+        if (effectsList == null) {
+            return;
+        }
+        scheduleAll(entity, effectsList, Collections.singleton(EquipmentItemIds.of(event.getItem())));
+        sendScheduled(entity, effectsList, event.getItem());
+    }
+
+    /**
+     * Once several items have been equipped at once and their effects added to the entity, schedule the expiry of
+     * their finite effects. This runs after the EquipmentEffectsSystem has added the effects, and like onEquip looks
+     * up the list of equipment effects, which may have been added while handling this event.
+     *
+     * @param event         Event containing information about the items equipped and unequipped.
+     * @param entity        Entity whose loadout has changed.
+     * @param eq            The equipment component of the entity.
+     */
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onLoadoutChanged(LoadoutChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        EquipmentEffectsListComponent effectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+        if (effectsList == null || event.getEquippedItems().isEmpty()) {
+            return;
+        }
+
+        Set<String> effectIDs = new HashSet<>();
+        for (EntityRef item : event.getEquippedItems()) {
+            effectIDs.add(EquipmentItemIds.of(item));
+        }
+        scheduleAll(entity, effectsList, effectIDs);
+        for (EntityRef item : event.getEquippedItems()) {
+            sendScheduled(entity, effectsList, item);
+        }
+    }
+
+    /**
+     * Schedule the expiry of all finite effects of an entity when it is loaded.
+     *
+     * @param event         Event sent when the entity's list of equipment effects is loaded.
+     * @param entity        The entity being loaded.
+     * @param effectsList   The list of equipment effects present on the entity.
+     */
+    @ReceiveEvent
+    public void onEffectsListActivated(OnActivatedComponent event, EntityRef entity,
+                                       EquipmentEffectsListComponent effectsList) {
+        scheduleAll(entity, effectsList, null);
+    }
+
+    /**
+     * Schedules the expiry of the finite effects of an entity.
+     *
+     * @param entity        The entity that has the effects.
+     * @param effectsList   The list of equipment effects present on the entity.
+     * @param effectIDs     Only schedule effects with one of these effectIDs, or all effects if null.
+     */
+    private void scheduleAll(EntityRef entity, EquipmentEffectsListComponent effectsList, Set<String> effectIDs) {
+        for (Map.Entry<String, Map<String, EquipmentEffectComponent>> effectsOfThisType : effectsList.effects.entrySet()) {
+            for (Map.Entry<String, EquipmentEffectComponent> effect : effectsOfThisType.getValue().entrySet()) {
+                if (effectIDs != null && !effectIDs.contains(effect.getKey())) {
+                    continue;
+                }
+
+                EquipmentEffectComponent eec = effect.getValue();
+                if (eec.duration == AlterationEffects.DURATION_INDEFINITE) {
+                    continue;
+                }
+
+                // Effects saved before expiry times existed only know their remaining duration.
+                if (eec.expiresAt == 0) {
+                    eec.expiresAt = time.getGameTimeInMs() + Math.max(eec.duration, 0);
+                }
+                expiries.add(new ScheduledExpiry(entity, EquipmentEffectKeys.keyOf(effectsOfThisType.getKey()),
+                        effect.getKey(), eec));
+            }
+        }
+    }
+
+    /**
+     * Tells the owner of an entity when the finite effects of a newly equipped item expire, so that it can count down
+     * their remaining time by itself instead of receiving updates.
+     *
+     * @param entity        The entity that equipped the item.
+     * @param effectsList   The list of equipment effects present on the entity.
+     * @param item          The equipped item.
+     */
+    private void sendScheduled(EntityRef entity, EquipmentEffectsListComponent effectsList, EntityRef item) {
+        String effectID = EquipmentItemIds.of(item);
+        List<String> effectTypes = new ArrayList<>();
+        List<Long> expiryTimes = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, EquipmentEffectComponent>> effectsOfThisType
+                : effectsList.effects.entrySet()) {
+            EquipmentEffectComponent eec = effectsOfThisType.getValue().get(effectID);
+            if (eec != null && eec.expiresAt != 0) {
+                effectTypes.add(effectsOfThisType.getKey());
+                expiryTimes.add(eec.expiresAt);
+            }
+        }
+
+        if (!effectTypes.isEmpty()) {
+            entity.send(new EquipmentEffectsScheduledEvent(item, effectTypes, expiryTimes));
+        }
+    }
+
+    /**
+     * Returns the item that an effectID refers to.
+     *
+     * @param effectID  The effectID of an equipment effect.
+     * @return          The item that provided the effect, or EntityRef.NULL if it can't be found.
+     */
+    private EntityRef getItem(String effectID) {
+        if (effectID == null || effectID.isEmpty() || EquipmentItemIds.isLegacy(effectID)) {
+            return EntityRef.NULL;
+        }
+        return entityManager.getEntity(Long.parseLong(effectID));
+    }
+
+    /**
+     * A single scheduled expiry of an equipment effect.
+     */
+    private static final class ScheduledExpiry {
+        private final EntityRef entity;
+        private final int effectKey;
+        private final String effectID;
+        private final EquipmentEffectComponent effect;
+        private final long expiresAt;
+
+        private ScheduledExpiry(EntityRef entity, int effectKey, String effectID, EquipmentEffectComponent effect) {
+            this.entity = entity;
+            this.effectKey = effectKey;
+            this.effectID = effectID;
+            this.effect = effect;
+            this.expiresAt = effect.expiresAt;
         }
     }
 }
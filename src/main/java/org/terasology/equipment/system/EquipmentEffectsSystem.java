@@ -37,13 +37,26 @@ import org.terasology.alterationEffects.speed.SwimSpeedAlterationEffect;
 import org.terasology.alterationEffects.speed.WalkSpeedAlterationEffect;
 import org.terasology.climateConditions.alterationEffects.BodyTemperatureAlterationEffect;
 import org.terasology.engine.context.Context;
+import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.network.NetFilterEvent;
 import org.terasology.engine.registry.In;
 import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentDamageTypes;
 import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentEffectKeys;
 import org.terasology.equipment.component.EquipmentEffectsListComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.component.EquipmentStackingComponent;
+import org.terasology.equipment.component.EquipmentStackingPolicy;
+import org.terasology.equipment.component.IntKeyMap;
 import org.terasology.equipment.component.effects.BodyTemperatureEffectComponent;
 import org.terasology.equipment.component.effects.BoostEffectComponent;
 import org.terasology.equipment.component.effects.BreathingEffectComponent;
@@ -60,12 +73,20 @@ import org.terasology.equipment.component.effects.StunEffectComponent;
 import org.terasology.equipment.component.effects.SwimSpeedEffectComponent;
 import org.terasology.equipment.component.effects.WalkSpeedEffectComponent;
 import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.EquipmentEffectExpiredEvent;
+import org.terasology.equipment.event.EquipmentEffectsScheduledEvent;
+import org.terasology.equipment.event.LoadoutChangedEvent;
 import org.terasology.equipment.event.UnequipItemEvent;
+import org.terasology.equipment.metrics.EquipmentMetric;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.health.components.HealthComponent;
 import org.terasology.module.health.events.BeforeDamagedEvent;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -74,9 +95,24 @@ import java.util.Map.Entry;
  */
 @RegisterSystem
 public class EquipmentEffectsSystem extends BaseComponentSystem {
+    /** How long (in milliseconds) an on-hit effect isn't re-applied to the same target by the same item. */
+    private static final long ON_HIT_COOLDOWN = 500;
+
     @In
     private Context context;
 
+    @In
+    private Time time;
+
+    @In
+    private EquipmentMetricsSystem metrics;
+
+    @In
+    private EquipmentArchetypeRegistry archetypes;
+
+    @In
+    private PrefabManager prefabManager;
+
     /**
      * Maps the EquipmentEffectComponents to their corresponding EffectComponents so that
      * 1. the system knows which EquipmentEffectComponents to look out for
@@ -85,13 +121,42 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
     private Map<Class, AlterationEffect> effectComponents = new HashMap<>();
 
     /**
-     * Maps the AlterationEffect class type names to their corresponding EquipmentEffectComponents so that
-     * 1. The system knows what class type String maps to EquipmentEffectComponent.
+     * Maps the AlterationEffect classes to their corresponding EquipmentEffectComponents so that
+     * 1. The system knows what AlterationEffect class maps to EquipmentEffectComponent.
+     */
+    private Map<Class, Class> alterationEffectComponents = new HashMap<>();
+
+    /**
+     * How the equipment effects of each EquipmentEffectComponent class stack with each other, as set from code.
+     * Classes that aren't in here, and aren't declared in a prefab either, add up.
+     */
+    private Map<Class, EquipmentStackingPolicy> stackingPolicies = new HashMap<>();
+
+    /**
+     * How the equipment effects of each type stack with each other, as declared by the prefabs with an
+     * EquipmentStackingComponent. Keyed by the lower-cased effect component name, see stackingName.
      */
-    private Map<String, Class> alterationEffectComponents = new HashMap<>();
+    private Map<String, EquipmentStackingPolicy> declaredStackingPolicies = new HashMap<>();
 
     private List<Class> multiDamageEffects = Lists.newArrayList();
 
+    /**
+     * Caches the combined multi-damage equipment effects (like resistances) on each entity, so that repeated effect
+     * modifications don't have to tally up every contributing effect again. An entry is dropped whenever one of its
+     * contributing effects is added, removed or expires.
+     */
+    private Map<EntityRef, IntKeyMap<EquipmentEffectComponent>> combinedEffects = new HashMap<>();
+
+    /**
+     * The running combination of every other equipment effect type (and subtype if any) on each entity, following
+     * the stacking policy of its effect class. Equipping and unequipping items updates these in place, other changes drop
+     * them so that they are rebuilt from the list of equipment effects when next needed.
+     */
+    private Map<EntityRef, IntKeyMap<EquipmentEffectAggregate>> aggregatedEffects = new HashMap<>();
+
+    /** When each item last applied each of its on-hit effects to each target. */
+    private final EquipmentOnHitCooldowns onHitCooldowns = new EquipmentOnHitCooldowns();
+
     /**
      * Initialize both maps.
      */
@@ -114,6 +179,40 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
         addEffect(WalkSpeedEffectComponent.class, new WalkSpeedAlterationEffect(context));
 
         multiDamageEffects.add(ResistEffectComponent.class);
+        loadStackingPolicies();
+    }
+
+    /**
+     * Reads the stacking policies declared by every prefab with an EquipmentStackingComponent. The prefabs are read
+     * in the order of their urns, so that a type declared more than once always ends up with the same policy.
+     */
+    private void loadStackingPolicies() {
+        List<Prefab> prefabs = Lists.newArrayList(prefabManager.listPrefabs(EquipmentStackingComponent.class));
+        prefabs.sort(Comparator.comparing(prefab -> prefab.getUrn().toString()));
+        for (Prefab prefab : prefabs) {
+            EquipmentStackingComponent stacking = prefab.getComponent(EquipmentStackingComponent.class);
+            for (Entry<String, EquipmentStackingPolicy> declared : stacking.policies.entrySet()) {
+                if (declared.getKey() != null && declared.getValue() != null) {
+                    declaredStackingPolicies.put(stackingName(declared.getKey()), declared.getValue());
+                }
+            }
+        }
+        aggregatedEffects.clear();
+    }
+
+    /**
+     * Returns the name under which the stacking policy of an effect type is declared: the name of its component as
+     * written in prefabs, without module or "Component" suffix, and lower-cased.
+     *
+     * @param name  The name of an effect component, like "Equipment:WalkSpeedEffect" or "WalkSpeedEffectComponent".
+     * @return      The normalised name, like "walkspeedeffect".
+     */
+    private static String stackingName(String name) {
+        String normalised = name.substring(name.indexOf(':') + 1).toLowerCase(Locale.ROOT);
+        if (normalised.endsWith("component")) {
+            normalised = normalised.substring(0, normalised.length() - "component".length());
+        }
+        return normalised;
     }
 
     /**
@@ -126,184 +225,196 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void onEquip(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
-        // Loop through known EquipmentEffectComponents.
-        for (Entry<Class, AlterationEffect> entry: effectComponents.entrySet()) {
-            // If the item has one of the equipment effect components.
-            if (event.getItem().hasComponent(entry.getKey())) {
-                EquipmentEffectComponent eec = (EquipmentEffectComponent) event.getItem().getComponent(entry.getKey());
-
-                if (eec != null) {
-                    // Add the equipment effects list to the character if it doesn't exist.
-                    if (entity.getComponent(EquipmentEffectsListComponent.class) == null) {
-                        entity.addComponent(new EquipmentEffectsListComponent());
-                    }
+        Map<Integer, EquipmentEffectComponent> selfEffects = new HashMap<>();
+        addItemEffects(entity, event.getItem(), selfEffects);
 
-                    // Get the list of equipment effects on this entity, and set the effectID of this current equipment
-                    // effect to be the associated equipment item's full JSON description.
-                    EquipmentEffectsListComponent eqEffectsList = entity.getComponent(EquipmentEffectsListComponent.class);
-                    eec.effectID = event.getItem().toFullDescription();
-
-                    // In case of effects that use IDs, have another check. This so that that stuff like individual ResistEffects
-                    // with different types of resists (e.g. Poison vs Fire vs Physical) are distinguished and tallied
-                    // correctly.
-                    if (eec.id.equals("")) {
-                        if (eqEffectsList.effects.containsKey(entry.getKey().getTypeName())) {
-                            eqEffectsList.effects.get(entry.getKey().getTypeName()).put(eec.effectID, eec);
-                        } else {
-                            eqEffectsList.effects.put(entry.getKey().getTypeName(), new HashMap<String, EquipmentEffectComponent>());
-                            eqEffectsList.effects.get(entry.getKey().getTypeName()).put(eec.effectID, eec);
-                        }
-                    } else {
-                        if (eqEffectsList.effects.containsKey(entry.getKey().getTypeName() + eec.id)) {
-                            eqEffectsList.effects.get(entry.getKey().getTypeName() + eec.id).put(eec.effectID, eec);
-                        } else {
-                            eqEffectsList.effects.put(entry.getKey().getTypeName() + eec.id, new HashMap<String, EquipmentEffectComponent>());
-                            eqEffectsList.effects.get(entry.getKey().getTypeName() + eec.id).put(eec.effectID, eec);
-                        }
-                    }
+        // Apply the effects that affect the user to the user.
+        for (EquipmentEffectComponent eec : selfEffects.values()) {
+            applyEffect(effectComponents.get(eec.getClass()), eec, entity, entity);
+        }
+    }
 
-                    // If this effect affects the user, apply it to the user.
-                    if (eec.affectsUser) {
-                        applyEffect(entry.getValue(), eec, entity, entity);
-                    }
-                }
+    /**
+     * When several items have been equipped and unequipped at once, update the equipment effects double map for all
+     * of them first, and only then apply or remove each affected alteration effect once. This way, the effects of
+     * each type (and subtype if any) are only combined once, no matter how many items contribute to them.
+     *
+     * @param event     Event containing information about the items equipped and unequipped.
+     * @param entity    Entity whose loadout has changed.
+     * @param eq        Reference to the entity's equipment component. Used as a delimiter/filter.
+     */
+    @ReceiveEvent
+    public void onLoadoutChanged(LoadoutChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        // The last effect seen under each key stands in for all of them, like the last of a series of single changes.
+        Map<Integer, EquipmentEffectComponent> removedSelfEffects = new HashMap<>();
+        Map<Integer, EquipmentEffectComponent> addedSelfEffects = new HashMap<>();
+
+        List<EntityRef> unequippedItems = event.getUnequippedItems();
+        List<String> unequippedEffectIDs = event.getUnequippedEffectIDs();
+        for (int i = 0; i < unequippedItems.size(); i++) {
+            String senderEffectID = i < unequippedEffectIDs.size() ? unequippedEffectIDs.get(i) : null;
+            removeItemEffects(entity, unequippedItems.get(i), senderEffectID, removedSelfEffects);
+        }
+        for (EntityRef item : event.getEquippedItems()) {
+            addItemEffects(entity, item, addedSelfEffects);
+        }
+
+        for (Entry<Integer, EquipmentEffectComponent> removed : removedSelfEffects.entrySet()) {
+            if (!addedSelfEffects.containsKey(removed.getKey())) {
+                EquipmentEffectComponent eec = removed.getValue();
+                removeEffect(effectComponents.get(eec.getClass()), eec, entity, entity);
             }
         }
+        for (EquipmentEffectComponent eec : addedSelfEffects.values()) {
+            applyEffect(effectComponents.get(eec.getClass()), eec, entity, entity);
+        }
     }
 
     /**
-     * Tallies up the magnitude and duration of one type of equipment effect and returns it in one combined
-     * EquipmentEffectComponent.
+     * Adds all equipment effect components of an equipped item into the equipment effect modifiers double map.
      *
-     * @param eec           The base EquipmentEffectComponent to be used. The only thing that'll be used is its type.
-     * @param eqEffectsList The list of equipment effects present on the entity.
-     * @param effectClass   The base class of effect that's being tallied for.
-     * @param entity        The entity that either has this effect or will have this applied soon.
-     * @return              A EquipmentEffectComponent with the combination of all magnitudes and durations of the same
-     *                      type (and subtype if any) as eec.
-     */
-    private EquipmentEffectComponent combineEffectValues(EquipmentEffectComponent eec, EquipmentEffectsListComponent eqEffectsList,
-                                                         Class effectClass, EntityRef entity) {
-        int duration = 0;
-        float magnitude = 0;
-        int smallestDuration = Integer.MAX_VALUE;
-        boolean affectsUser = true; // Assume this is always true for now.
-        boolean affectsEnemies = false; // Assume this is always false for now.
-        String effectID = eec.effectID;
+     * @param entity        Entity that equipped the item.
+     * @param item          The equipped item.
+     * @param selfEffects   Receives the item's effects that affect the user, by effect key.
+     */
+    private void addItemEffects(EntityRef entity, EntityRef item, Map<Integer, EquipmentEffectComponent> selfEffects) {
+        // Loop through the EquipmentEffectComponents present on this item.
+        for (Class effectClass : getManifest(item).getEffects()) {
+            EquipmentEffectComponent eec = (EquipmentEffectComponent) item.getComponent(effectClass);
+
+            if (eec != null) {
+                // Add the equipment effects list to the character if it doesn't exist.
+                if (entity.getComponent(EquipmentEffectsListComponent.class) == null) {
+                    entity.addComponent(new EquipmentEffectsListComponent());
+                }
 
-        // This flag is used for tracking whether an effect with infinite duration has been found.
-        boolean foundInfDuration = false;
+                // Get the list of equipment effects on this entity, and set the effectID of this current equipment
+                // effect to be the associated equipment item's compact id.
+                EquipmentEffectsListComponent eqEffectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+                eec.effectID = EquipmentItemIds.of(item);
 
-        // Create a new EquipmentEffectComponent for tallying up the combined values of this effect type (or subtype).
-        EquipmentEffectComponent eecCombined = new EquipmentEffectComponent();
-
-        // In case of effects that use IDs, have another check. This so that that stuff like individual ResistEffects
-        // with different types of resists (e.g. Poison vs Fire vs Physical) are distinguished and tallied
-        // correctly.
-        if (multiDamageEffects.contains(eec.getClass())) {
-            ResistEffectComponent recCombined = new ResistEffectComponent();
-            // Iterate through all effects that are under this particular effect class or type.
-            for (Entry<String, EquipmentEffectComponent> effectOfThisType : eqEffectsList.effects.get(effectClass.getTypeName()).entrySet()) {
-                if (effectOfThisType.getValue().affectsUser) {
-                    ResistEffectComponent resistEffectOfThisType = (ResistEffectComponent) effectOfThisType.getValue();
-                    // If the duration of this new effect is below the current tally, and the new duration is not
-                    // infinite, set the smallestDuration and effectID to refer to this effect.
-                    if (effectOfThisType.getValue().duration < smallestDuration
-                            && effectOfThisType.getValue().duration != AlterationEffects.DURATION_INDEFINITE) {
-                        smallestDuration = effectOfThisType.getValue().duration;
-                        effectID = effectOfThisType.getKey();
-                    }
+                // Start counting down what is left of a finite effect. The EquipmentEffectsAuthoritySystem removes
+                // it once this time has passed.
+                if (eec.duration != AlterationEffects.DURATION_INDEFINITE) {
+                    eec.expiresAt = time.getGameTimeInMs() + Math.max(eec.duration, 0);
+                }
 
-                    // If the duration of this new effect is infinite, set the foundInfDuration flag to true.
-                    if (effectOfThisType.getValue().duration == AlterationEffects.DURATION_INDEFINITE) {
-                        foundInfDuration = true;
-                    }
+                // Effects are grouped by their type, and by their id in case of effects that use IDs. This so that
+                // that stuff like individual ResistEffects with different types of resists (e.g. Poison vs Fire vs
+                // Physical) are distinguished and tallied correctly.
+                int effectKey = EquipmentEffectKeys.keyOf(effectClass, eec.id);
+                eqEffectsList.getOrCreateEffectsOfType(effectKey).put(eec.effectID, eec);
+                addToCombinedEffect(entity, effectKey, eec);
 
-                    // If the duration of this new effect is non-zero, tally up the total duration and magnitude.
-                    if (effectOfThisType.getValue().duration != 0) {
-                        duration += effectOfThisType.getValue().duration;
-                        // Loop over individual damage resistances in each component.
-                        for (Entry<String, ResistDamageEffect> resistDamageType : resistEffectOfThisType.resistances.entrySet()) {
-                            ResistDamageEffect rde = recCombined.resistances.get(resistDamageType.getValue().resistType);
-                            if (rde == null) {
-                                ResistDamageEffect rdeCombined = new ResistDamageEffect();
-                                rdeCombined.resistType = resistDamageType.getValue().resistType;
-                                rdeCombined.resistAmount = resistDamageType.getValue().resistAmount;
-                                recCombined.resistances.put(resistDamageType.getValue().resistType, rdeCombined);
-                            } else {
-                                rde.resistAmount += resistDamageType.getValue().resistAmount;
+                if (eec.affectsUser) {
+                    selfEffects.put(effectKey, eec);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-keys the equipment effects of equipped items that were saved by an older version of this module, which used
+     * the item's full JSON description as the effectID.
+     *
+     * @param event     Event sent when the entity's equipment component is loaded.
+     * @param entity    The entity being loaded.
+     * @param eq        Reference to the entity's equipment component.
+     * @param eqEffectsList The list of equipment effects present on the entity.
+     */
+    @NetFilterEvent(netFilter = RegisterMode.AUTHORITY)
+    @ReceiveEvent
+    public void migrateEffectIds(OnActivatedComponent event, EntityRef entity, EquipmentComponent eq,
+                                 EquipmentEffectsListComponent eqEffectsList) {
+        boolean migrated = false;
+
+        for (EquipmentSlot eSlot : eq.equipmentSlots) {
+            for (EntityRef item : eSlot.itemRefs) {
+                for (Class effectClass : getManifest(item).getEffects()) {
+                    EquipmentEffectComponent eec = (EquipmentEffectComponent) item.getComponent(effectClass);
+
+                    if (eec != null && EquipmentItemIds.isLegacy(eec.effectID)) {
+                        String legacyID = eec.effectID;
+                        eec.effectID = EquipmentItemIds.of(item);
+                        item.saveComponent(eec);
+
+                        // Move the saved copy of this effect over to the new key, wherever it is stored.
+                        for (Map<String, EquipmentEffectComponent> effectsOfThisType : eqEffectsList.effects.values()) {
+                            EquipmentEffectComponent saved = effectsOfThisType.remove(legacyID);
+                            if (saved != null) {
+                                saved.effectID = eec.effectID;
+                                effectsOfThisType.put(saved.effectID, saved);
+                                migrated = true;
                             }
                         }
                     }
                 }
             }
-            // If the smallestDuration is still at the max value, or it's at 0 amd there was an effect duration found that
-            // was infinite, set the smallestDuration to infinite.
-            if (smallestDuration == Integer.MAX_VALUE || (smallestDuration == 0 && foundInfDuration)) {
-                smallestDuration = AlterationEffects.DURATION_INDEFINITE;
-            }
+        }
 
-            // Set the important values of the combined EquipmentEffectComponent
-            recCombined.duration = smallestDuration;
-            recCombined.effectID = effectID;
-            recCombined.affectsUser = affectsUser;
-            recCombined.affectsEnemies = affectsEnemies;
-
-            // Return the combined EquipmentEffect component.
-            return recCombined;
-        } else if (eec.id.equals("")) {
-            // Iterate through all effects that are under this particular effect class or type.
-            for (Entry<String, EquipmentEffectComponent> effectOfThisType : eqEffectsList.effects.get(effectClass.getTypeName()).entrySet()) {
-                // As long as it affects the user, tally up the duration and magnitude, as well as determine the effect
-                // with the shortestDuration and its effectIU.
-                if (effectOfThisType.getValue().affectsUser) {
-                    // If the duration of this new effect is below the current tally, and the new duration is not
-                    // infinite, set the smallestDuration and effectID to refer to this effect.
-                    if (effectOfThisType.getValue().duration < smallestDuration
-                            && effectOfThisType.getValue().duration != AlterationEffects.DURATION_INDEFINITE) {
-                        smallestDuration = effectOfThisType.getValue().duration;
-                        effectID = effectOfThisType.getKey();
-                    }
+        if (migrated) {
+            entity.saveComponent(eqEffectsList);
+        }
+    }
 
-                    // If the duration of this new effect is infinite, set the foundInfDuration flag to true.
-                    if (effectOfThisType.getValue().duration == AlterationEffects.DURATION_INDEFINITE) {
-                        foundInfDuration = true;
-                    }
+    /**
+     * Tallies up the resistances and duration of one multi-damage equipment effect type and returns them in one
+     * combined ResistEffectComponent. Other effect types are combined by EquipmentEffectAggregate instead.
+     *
+     * @param eec           The base EquipmentEffectComponent to be used. The only thing that'll be used is its type.
+     * @param effectsOfThisType The equipment effects of the same type present on the entity.
+     * @return              A ResistEffectComponent with the combination of all resistances and durations of the same
+     *                      type as eec.
+     */
+    private EquipmentEffectComponent combineEffectValues(EquipmentEffectComponent eec,
+                                                         Map<String, EquipmentEffectComponent> effectsOfThisType) {
+        long now = time.getGameTimeInMs();
+        int smallestDuration = Integer.MAX_VALUE;
+        long smallestExpiry = 0;
+        boolean affectsUser = true; // Assume this is always true for now.
+        boolean affectsEnemies = false; // Assume this is always false for now.
+        String effectID = eec.effectID;
 
-                    // If the duration of this new effect is non-zero, tally up the total duration and magnitude.
-                    if (effectOfThisType.getValue().duration != 0) {
-                        duration += effectOfThisType.getValue().duration;
-                        magnitude += effectOfThisType.getValue().magnitude;
-                    }
+        // This flag is used for tracking whether an effect with infinite duration has been found.
+        boolean foundInfDuration = false;
+
+        // Effects like individual ResistEffects with different types of resists (e.g. Poison vs Fire vs Physical) are
+        // tallied per damage type.
+        ResistEffectComponent recCombined = new ResistEffectComponent();
+        float[] combinedResistances = new float[EquipmentDamageTypes.size()];
+        // Iterate through all effects that are under this particular effect class or type.
+        for (Entry<String, EquipmentEffectComponent> effectOfThisType : effectsOfThisType.entrySet()) {
+            int effectDuration = effectOfThisType.getValue().getRemainingDuration(now);
+            if (effectOfThisType.getValue().affectsUser) {
+                ResistEffectComponent resistEffectOfThisType = (ResistEffectComponent) effectOfThisType.getValue();
+                // If the duration of this new effect is below the current tally, and the new duration is not
+                // infinite, set the smallestDuration and effectID to refer to this effect.
+                if (effectDuration < smallestDuration
+                        && effectDuration != AlterationEffects.DURATION_INDEFINITE) {
+                    smallestDuration = effectDuration;
+                    smallestExpiry = effectOfThisType.getValue().expiresAt;
+                    effectID = effectOfThisType.getKey();
                 }
-            }
-        } else {
-            for (Entry<String, EquipmentEffectComponent> effectOfThisType : eqEffectsList.effects.get(effectClass.getTypeName() + eec.id).entrySet()) {
-                // As long as the effect has the correct type and it affects the user, tally up the duration and
-                // magnitude, as well as determine the effect with the shortestDuration and its effectIU.
-                if (effectOfThisType.getValue().id.equalsIgnoreCase(eec.id) && effectOfThisType.getValue().affectsUser) {
-                    // If the duration of this new effect is below the current tally, and the new duration is not
-                    // infinite, set the smallestDuration and effectID to refer to this effect.
-                    if (effectOfThisType.getValue().duration < smallestDuration
-                            && effectOfThisType.getValue().duration != AlterationEffects.DURATION_INDEFINITE) {
-                        smallestDuration = effectOfThisType.getValue().duration;
-                        effectID = effectOfThisType.getKey();
-                    }
 
-                    // If the duration of this new effect is infinite, set the foundInfDuration flag to true.
-                    if (effectOfThisType.getValue().duration == AlterationEffects.DURATION_INDEFINITE) {
-                        foundInfDuration = true;
-                    }
+                // If the duration of this new effect is infinite, set the foundInfDuration flag to true.
+                if (effectDuration == AlterationEffects.DURATION_INDEFINITE) {
+                    foundInfDuration = true;
+                }
 
-                    // If the duration of this new effect is non-zero, tally up the total duration and magnitude.
-                    if (effectOfThisType.getValue().duration != 0) {
-                        duration += effectOfThisType.getValue().duration;
-                        magnitude += effectOfThisType.getValue().magnitude;
+                // If the duration of this new effect is non-zero, tally up its resistances.
+                if (effectDuration != 0) {
+                    // Add up the individual damage resistances in each component, indexed by damage type.
+                    int[] resistTypes = resistEffectOfThisType.getResistTypes();
+                    float[] resistAmounts = resistEffectOfThisType.getResistAmounts();
+                    for (int i = 0; i < resistTypes.length; i++) {
+                        if (resistTypes[i] >= combinedResistances.length) {
+                            combinedResistances = Arrays.copyOf(combinedResistances, EquipmentDamageTypes.size());
+                        }
+                        combinedResistances[resistTypes[i]] += resistAmounts[i];
                     }
                 }
             }
         }
-
         // If the smallestDuration is still at the max value, or it's at 0 amd there was an effect duration found that
         // was infinite, set the smallestDuration to infinite.
         if (smallestDuration == Integer.MAX_VALUE || (smallestDuration == 0 && foundInfDuration)) {
@@ -311,15 +422,15 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
         }
 
         // Set the important values of the combined EquipmentEffectComponent
-        eecCombined.duration = smallestDuration;
-        eecCombined.magnitude = magnitude;
-        eecCombined.id = eec.id;
-        eecCombined.effectID = effectID;
-        eecCombined.affectsUser = affectsUser;
-        eecCombined.affectsEnemies = affectsEnemies;
+        recCombined.setCombinedResistances(combinedResistances);
+        recCombined.duration = smallestDuration;
+        recCombined.expiresAt = smallestDuration == AlterationEffects.DURATION_INDEFINITE ? 0 : smallestExpiry;
+        recCombined.effectID = effectID;
+        recCombined.affectsUser = affectsUser;
+        recCombined.affectsEnemies = affectsEnemies;
 
         // Return the combined EquipmentEffect component.
-        return eecCombined;
+        return recCombined;
     }
 
     /**
@@ -332,33 +443,58 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void onUnequip(UnequipItemEvent event, EntityRef entity, EquipmentComponent eq) {
-        // Loop through known EquipmentEffectComponents.
-        for (Entry<Class, AlterationEffect> entry: effectComponents.entrySet()) {
-            // If the item has one of the equipment effect components.
-            if (event.getItem().hasComponent(entry.getKey())) {
-                EquipmentEffectComponent eec = (EquipmentEffectComponent) event.getItem().getComponent(entry.getKey());
-                if (eec != null) {
-                    EquipmentEffectsListComponent eqEffectsList = entity.getComponent(EquipmentEffectsListComponent.class);
-
-                    // In case of effects that use IDs, have another check. This so that that stuff like individual ResistEffects
-                    // with different types of resists (e.g. Poison vs Fire vs Physical) are distinguished and tallied
-                    // correctly.
-                    if (eqEffectsList != null) {
-                        if (eec.id.equals("")) {
-                            if (eqEffectsList.effects.containsKey(entry.getKey().getTypeName())) {
-                                eqEffectsList.effects.get(entry.getKey().getTypeName()).remove(eec.effectID);
-                            }
-                        } else {
-                            if (eqEffectsList.effects.containsKey(entry.getKey().getTypeName())) {
-                                eqEffectsList.effects.get(entry.getKey().getTypeName() + eec.id).remove(eec.effectID);
-                            }
-                        }
-                    }
+        Map<Integer, EquipmentEffectComponent> selfEffects = new HashMap<>();
+        removeItemEffects(entity, event.getItem(), event.getEffectID(), selfEffects);
+
+        // Remove the effects that affect the user from the user.
+        for (EquipmentEffectComponent eec : selfEffects.values()) {
+            removeEffect(effectComponents.get(eec.getClass()), eec, entity, entity);
+        }
+    }
+
+    /**
+     * Removes all equipment effect components of an unequipped item from the equipment effect modifiers double map.
+     *
+     * @param entity        The entity that unequipped the item.
+     * @param item          The unequipped item.
+     * @param senderEffectID The effectID of the item's effects on the sender of the unequip event, or null.
+     * @param selfEffects   Receives the item's effects that affect the user, by effect key.
+     */
+    private void removeItemEffects(EntityRef entity, EntityRef item, String senderEffectID,
+                                   Map<Integer, EquipmentEffectComponent> selfEffects) {
+        // Loop through the EquipmentEffectComponents present on this item.
+        for (Class effectClass : getManifest(item).getEffects()) {
+            EquipmentEffectComponent eec = (EquipmentEffectComponent) item.getComponent(effectClass);
+            if (eec != null) {
+                EquipmentEffectsListComponent eqEffectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+
+                // Remove the effect from the same type (and subtype if any) that it was added under.
+                int effectKey = EquipmentEffectKeys.keyOf(effectClass, eec.id);
+                Map<String, EquipmentEffectComponent> effectsOfThisType =
+                        eqEffectsList == null ? null : eqEffectsList.getEffectsOfType(effectKey);
+                if (effectsOfThisType != null) {
+                    effectsOfThisType.remove(eec.effectID);
+                }
+                removeFromCombinedEffect(entity, effectKey, eec.effectID);
 
-                    // If this effect affects the user, remove it from the user.
-                    if (eec.affectsUser) {
-                        removeEffect(entry.getValue(), eec, entity, entity);
+                // A client that received the list of equipment effects after the item was equipped knows the effect
+                // by the authority's id of the item, like in onEquipmentEffectExpired.
+                if (senderEffectID != null && !senderEffectID.equals(eec.effectID)) {
+                    if (effectsOfThisType != null) {
+                        effectsOfThisType.remove(senderEffectID);
                     }
+                    removeFromCombinedEffect(entity, effectKey, senderEffectID);
+                }
+
+                // Stop the countdown of a finite effect, keeping whatever duration is left for the next time the
+                // item is equipped.
+                if (eec.expiresAt != 0) {
+                    eec.duration = eec.getRemainingDuration(time.getGameTimeInMs());
+                    eec.expiresAt = 0;
+                }
+
+                if (eec.affectsUser) {
+                    selfEffects.put(effectKey, eec);
                 }
             }
         }
@@ -373,22 +509,75 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void takingDamage(BeforeDamagedEvent event, EntityRef damageTarget) {
+        long start = System.nanoTime();
+
         // Get the item that will be dealing damage to the damageTarget.
         EntityRef item = event.getDirectCause();
 
-        // Iterate through all possible equipment effect components, to see if any of them are present in the item.
-        for (Entry<Class, AlterationEffect> entry: effectComponents.entrySet()) {
-            // If an equipment effect was found on this item.
-            if (event.getDirectCause().hasComponent(entry.getKey())) {
-                // Get the equipment effect from the item.
-                EquipmentEffectComponent eec = (EquipmentEffectComponent) item.getComponent(entry.getKey());
-
-                // If the effect exists and it affects enemies, apply it on the damageTarget.
-                if (eec != null && eec.affectsEnemies) {
-                    applyEffect(entry.getValue(), eec, event.getInstigator(), damageTarget);
-                }
+        // Iterate through the equipment effect components on this item that affect enemies.
+        List<Class> enemyEffects = getManifest(item).getEnemyEffects();
+        long now = enemyEffects.isEmpty() ? 0 : time.getGameTimeInMs();
+        for (int i = 0; i < enemyEffects.size(); i++) {
+            // Get the equipment effect from the item.
+            Class effectClass = enemyEffects.get(i);
+            EquipmentEffectComponent eec = (EquipmentEffectComponent) item.getComponent(effectClass);
+
+            // If the effect exists and it affects enemies, apply it on the damageTarget, unless this item already
+            // applied it to the damageTarget a moment ago.
+            if (eec != null && eec.affectsEnemies
+                    && onHitCooldowns.tryApply(item, damageTarget, i, enemyEffects.size(), now, getOnHitWindow(eec))) {
+                applyEffect(effectComponents.get(effectClass), eec, event.getInstigator(), damageTarget);
             }
         }
+        metrics.recordSince(EquipmentMetric.DAMAGE_HOOK, start);
+    }
+
+    /**
+     * Returns how long an on-hit effect isn't re-applied to the same target by the same item. Effects with a short
+     * finite duration are re-applied after half their duration at most, so that they can be refreshed before they
+     * run out.
+     *
+     * @param eec   The equipment effect applied on hit.
+     * @return      The cooldown window (in milliseconds).
+     */
+    private long getOnHitWindow(EquipmentEffectComponent eec) {
+        if (eec.duration == AlterationEffects.DURATION_INDEFINITE) {
+            return ON_HIT_COOLDOWN;
+        }
+        // Even the shortest effects get a window, so that a burst of hits within the same millisecond coalesces.
+        return Math.min(ON_HIT_COOLDOWN, Math.max(1, Math.max(eec.duration, 0) / 2));
+    }
+
+    /**
+     * Forgets the on-hit effect cooldowns of an entity that is going away.
+     *
+     * @param event     Event sent when the entity's health component is deactivated.
+     * @param entity    The entity being deactivated.
+     * @param health    The entity's health component. Used as a delimiter/filter.
+     */
+    @ReceiveEvent
+    public void onDamageTargetDeactivated(BeforeDeactivateComponent event, EntityRef entity,
+                                          HealthComponent health) {
+        onHitCooldowns.evict(entity);
+    }
+
+    /**
+     * Returns which equipment effect components an item has. For items created from an equipment prefab, this is
+     * read from the prefab's archetype, so an effect component added to an item at runtime is only seen if its prefab
+     * has that component too. Other items are checked directly every time.
+     *
+     * @param item  The item whose equipment effects are requested.
+     * @return      The manifest of the item's equipment effects.
+     */
+    private EquipmentEffectManifest getManifest(EntityRef item) {
+        EquipmentArchetype archetype = archetypes.get(item);
+        if (archetype != null) {
+            return archetype.getEffects();
+        }
+        if (!item.exists()) {
+            return EquipmentEffectManifest.EMPTY;
+        }
+        return EquipmentEffectManifest.compile(effectComponents.keySet(), item::getComponent);
     }
 
     /**
@@ -399,7 +588,50 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
      */
     public void addEffect(Class eec, AlterationEffect alterationEffect) {
         effectComponents.put(eec, alterationEffect);
-        alterationEffectComponents.put(alterationEffect.getClass().getTypeName(), eec);
+        alterationEffectComponents.put(alterationEffect.getClass(), eec);
+    }
+
+    /**
+     * Add an element to the two maps, along with how equipment effects of that type stack with each other unless a
+     * prefab declares otherwise.
+     *
+     * @param eec               The base class of the equipment effect component.
+     * @param alterationEffect  The alteration effect associated with that effect type.
+     * @param stacking          How several equipment effects of that type (and subtype if any) are combined.
+     */
+    public void addEffect(Class eec, AlterationEffect alterationEffect, EquipmentStackingPolicy stacking) {
+        addEffect(eec, alterationEffect);
+        setStackingPolicy(eec, stacking);
+    }
+
+    /**
+     * Changes how the equipment effects of the given type (and every subtype) stack with each other, unless a prefab
+     * declares a policy for that type, which takes precedence. The running combinations are rebuilt with the new
+     * policy when next needed.
+     *
+     * @param eec       The base class of the equipment effect component.
+     * @param stacking  How several equipment effects of that type are combined, or null to add them up.
+     */
+    public void setStackingPolicy(Class eec, EquipmentStackingPolicy stacking) {
+        EquipmentStackingPolicy policy = stacking == null ? EquipmentStackingPolicy.SUM : stacking;
+        if (stackingPolicies.put(eec, policy) != policy) {
+            aggregatedEffects.clear();
+        }
+    }
+
+    /**
+     * Returns how the equipment effects of the given type stack with each other: as declared by a prefab, or else as
+     * set from code.
+     *
+     * @param eec   The base class of the equipment effect component.
+     * @return      The stacking policy of that type, SUM if none was declared or set.
+     */
+    public EquipmentStackingPolicy getStackingPolicy(Class eec) {
+        EquipmentStackingPolicy declared = declaredStackingPolicies.get(stackingName(eec.getSimpleName()));
+        if (declared != null) {
+            return declared;
+        }
+        return stackingPolicies.getOrDefault(eec, EquipmentStackingPolicy.SUM);
     }
 
     /**
@@ -471,46 +703,235 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
         }
 
         // Get the effect component associated with this alteration effect.
-        Class component = alterationEffectComponents.get(event.getAlterationEffect().getClass().getTypeName());
+        Class component = alterationEffectComponents.get(event.getAlterationEffect().getClass());
 
         // If this component doesn't exist, or the given effect is not registered in the effects map, return.
         if (component == null) {
             return;
         }
-        // Check because for MultiDamage EEC id is not used.
+
+        // Get the combination of all equipment effect values that have the same type (and subtype if applicable),
+        // reusing the previous combination if none of its contributing effects have changed since. For MultiDamage
+        // EECs the id is not part of the key.
+        boolean multiDamage = multiDamageEffects.contains(component);
+        int effectKey = EquipmentEffectKeys.keyOf(component, multiDamage ? "" : event.getId());
+        EquipmentEffectComponent applyThis = multiDamage
+                ? getCombinedEffect(entity, eq, effectKey)
+                : getAggregatedEffect(entity, eq, effectKey);
+        if (applyThis == null) {
+            return;
+        }
+
+        // Now, add the duration, effectID, and magnitude of the combined matching equipment effects into the
+        // event's list of effect modifiers.
+        event.addDuration(applyThis.getRemainingDuration(time.getGameTimeInMs()), applyThis.effectID);
+        // Get the specific type damage in case of a multiDamage EEC.
         if (multiDamageEffects.contains(component)) {
-            if (eq.effects.get(component.getTypeName()) == null) {
-                return;
-            }
+            ResistEffectComponent rec = (ResistEffectComponent) applyThis;
+            event.addMagnitude(rec.getResistance(EquipmentDamageTypes.find(event.getId())));
         } else {
-            if (eq.effects.get(component.getTypeName() + event.getId()) == null) {
-                return;
+            event.addMagnitude(applyThis.magnitude);
+        }
+    }
+
+    /**
+     * Returns the combination of all equipment effects stored under the given key, combining them only if this hasn't
+     * been done since they last changed.
+     *
+     * @param entity        The entity that has the effects.
+     * @param eqEffectsList The list of equipment effects present on the entity.
+     * @param effectKey     The interned key of the effect type (and subtype if any), see EquipmentEffectKeys.
+     * @return              The combined EquipmentEffectComponent, or null if there are no effects of this type.
+     */
+    private EquipmentEffectComponent getCombinedEffect(EntityRef entity, EquipmentEffectsListComponent eqEffectsList,
+                                                       int effectKey) {
+        IntKeyMap<EquipmentEffectComponent> combinedOfEntity = combinedEffects.get(entity);
+        if (combinedOfEntity == null) {
+            combinedOfEntity = new IntKeyMap<>();
+            combinedEffects.put(entity, combinedOfEntity);
+        }
+
+        EquipmentEffectComponent combined = combinedOfEntity.get(effectKey);
+        if (combined == null) {
+            Map<String, EquipmentEffectComponent> effectsOfThisType = eqEffectsList.getEffectsOfType(effectKey);
+            if (effectsOfThisType == null || effectsOfThisType.isEmpty()) {
+                return null;
             }
+
+            // Any effect of this type can serve as the base, as only its type and subtype are used.
+            long start = System.nanoTime();
+            combined = combineEffectValues(effectsOfThisType.values().iterator().next(), effectsOfThisType);
+            metrics.recordSince(EquipmentMetric.EFFECT_COMBINE, start);
+            combinedOfEntity.put(effectKey, combined);
         }
+        return combined;
+    }
 
-        EquipmentEffectComponent applyThis = null;
-
-        // This loop is only used to get the first element from the map of applicable equipment effects.
-        for (Entry<String, EquipmentEffectComponent> effectOfThisType : eq.effects.get(component.getTypeName()).entrySet()) {
-            // Get the combination of all equipment effect values that have the same type (and subtype if applicable)
-            // as this one.
-            applyThis = combineEffectValues(effectOfThisType.getValue(), entity.getComponent(EquipmentEffectsListComponent.class),
-                    component, entity);
-            // Now, add the duration, effectID, and magnitude of the combined matching equipment effects into the
-            // event's list of effect modifiers.
-            event.addDuration(applyThis.duration, applyThis.effectID);
-            // Get the specific type damage in case of a multiDamage EEC.
-            if (multiDamageEffects.contains(component)) {
-                ResistEffectComponent rec = (ResistEffectComponent) applyThis;
-                event.addMagnitude(rec.resistances.get(event.getId()).resistAmount);
-            } else {
-                event.addMagnitude(applyThis.magnitude);
+    /**
+     * Returns the combination of all equipment effects stored under the given key, according to the stacking policy
+     * of their class (see setStackingPolicy). The running combination is only built from the list of equipment effects if there is none yet.
+     *
+     * @param entity        The entity that has the effects.
+     * @param eqEffectsList The list of equipment effects present on the entity.
+     * @param effectKey     The interned key of the effect type (and subtype if any), see EquipmentEffectKeys.
+     * @return              The combined EquipmentEffectComponent, or null if there are no effects of this type.
+     */
+    private EquipmentEffectComponent getAggregatedEffect(EntityRef entity, EquipmentEffectsListComponent eqEffectsList,
+                                                         int effectKey) {
+        long now = time.getGameTimeInMs();
+        IntKeyMap<EquipmentEffectAggregate> aggregatesOfEntity = aggregatedEffects.get(entity);
+        if (aggregatesOfEntity == null) {
+            aggregatesOfEntity = new IntKeyMap<>();
+            aggregatedEffects.put(entity, aggregatesOfEntity);
+        }
+
+        EquipmentEffectAggregate aggregate = aggregatesOfEntity.get(effectKey);
+        if (aggregate == null) {
+            Map<String, EquipmentEffectComponent> effectsOfThisType = eqEffectsList.getEffectsOfType(effectKey);
+            if (effectsOfThisType == null || effectsOfThisType.isEmpty()) {
+                return null;
             }
 
-            return;
+            long start = System.nanoTime();
+            // All effects under one key share the same class, so any of them tells which policy applies.
+            EquipmentEffectComponent anyEffect = effectsOfThisType.values().iterator().next();
+            aggregate = new EquipmentEffectAggregate(getStackingPolicy(anyEffect.getClass()), anyEffect.id);
+            for (EquipmentEffectComponent eec : effectsOfThisType.values()) {
+                aggregate.add(eec, now);
+            }
+            metrics.recordSince(EquipmentMetric.EFFECT_COMBINE, start);
+            aggregatesOfEntity.put(effectKey, aggregate);
+        }
+        return aggregate.get(now);
+    }
+
+    /**
+     * Adds a newly equipped effect to the running combination of its type, if there is one. Multi-damage effects are
+     * combined from scratch the next time they are needed instead.
+     *
+     * @param entity    The entity that has the effects.
+     * @param effectKey The interned key of the effect type (and subtype if any), see EquipmentEffectKeys.
+     * @param eec       The equipped effect.
+     */
+    private void addToCombinedEffect(EntityRef entity, int effectKey, EquipmentEffectComponent eec) {
+        dropCombinedEffect(entity, effectKey);
+        IntKeyMap<EquipmentEffectAggregate> aggregatesOfEntity = aggregatedEffects.get(entity);
+        EquipmentEffectAggregate aggregate = aggregatesOfEntity == null ? null : aggregatesOfEntity.get(effectKey);
+        if (aggregate != null) {
+            aggregate.add(eec, time.getGameTimeInMs());
+        }
+    }
+
+    /**
+     * Removes an unequipped effect from the running combination of its type, if there is one.
+     *
+     * @param entity    The entity that has the effects.
+     * @param effectKey The interned key of the effect type (and subtype if any), see EquipmentEffectKeys.
+     * @param effectID  The effectID of the unequipped effect.
+     */
+    private void removeFromCombinedEffect(EntityRef entity, int effectKey, String effectID) {
+        dropCombinedEffect(entity, effectKey);
+        IntKeyMap<EquipmentEffectAggregate> aggregatesOfEntity = aggregatedEffects.get(entity);
+        EquipmentEffectAggregate aggregate = aggregatesOfEntity == null ? null : aggregatesOfEntity.get(effectKey);
+        if (aggregate != null) {
+            aggregate.remove(effectID);
+            if (aggregate.isEmpty()) {
+                // Don't keep an empty combination around for every type the entity ever had.
+                aggregatesOfEntity.remove(effectKey);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached combination of the equipment effects stored under the given key, so that it is rebuilt from
+     * the list of equipment effects when next needed.
+     *
+     * @param entity    The entity that has the effects.
+     * @param effectKey The interned key of the effect type (and subtype if any), see EquipmentEffectKeys.
+     */
+    private void invalidateCombinedEffect(EntityRef entity, int effectKey) {
+        dropCombinedEffect(entity, effectKey);
+        IntKeyMap<EquipmentEffectAggregate> aggregatesOfEntity = aggregatedEffects.get(entity);
+        if (aggregatesOfEntity != null) {
+            aggregatesOfEntity.remove(effectKey);
+        }
+    }
+
+    private void dropCombinedEffect(EntityRef entity, int effectKey) {
+        IntKeyMap<EquipmentEffectComponent> combinedOfEntity = combinedEffects.get(entity);
+        if (combinedOfEntity != null) {
+            combinedOfEntity.remove(effectKey);
         }
     }
 
+    /**
+     * When a finite equipment effect has run out, drop the cached combination it contributed to. On clients, this
+     * also removes the effect from their own copy of the list of equipment effects, which isn't replicated after the
+     * entity was first sent.
+     *
+     * @param event     Event containing information on which effect expired.
+     * @param entity    The entity who had this effect.
+     */
+    @ReceiveEvent
+    public void onEquipmentEffectExpired(EquipmentEffectExpiredEvent event, EntityRef entity) {
+        int effectKey = EquipmentEffectKeys.keyOf(event.getEffectType());
+        invalidateCombinedEffect(entity, effectKey);
+
+        EquipmentEffectsListComponent eqEffectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+        Map<String, EquipmentEffectComponent> effectsOfThisType =
+                eqEffectsList == null ? null : eqEffectsList.getEffectsOfType(effectKey);
+        if (effectsOfThisType != null) {
+            // The client knows the effect by its own id of the item, unless it came with the initial copy of the list.
+            EquipmentEffectComponent expired = event.getItem().exists()
+                    ? effectsOfThisType.remove(EquipmentItemIds.of(event.getItem())) : null;
+            if (expired == null) {
+                expired = effectsOfThisType.remove(event.getEffectID());
+            }
+            if (expired != null) {
+                expired.duration = 0;
+                expired.expiresAt = 0;
+            }
+        }
+    }
+
+    /**
+     * On clients, take over the expiry times of the finite effects of a newly equipped item from the authority, so
+     * that the remaining time can be counted down locally.
+     *
+     * @param event     Event containing the item and the expiry time of each of its finite effects.
+     * @param entity    The entity that equipped the item.
+     * @param eqEffectsList The list of equipment effects present on the entity.
+     */
+    @NetFilterEvent(netFilter = RegisterMode.REMOTE_CLIENT)
+    @ReceiveEvent
+    public void onEquipmentEffectsScheduled(EquipmentEffectsScheduledEvent event, EntityRef entity,
+                                            EquipmentEffectsListComponent eqEffectsList) {
+        String effectID = EquipmentItemIds.of(event.getItem());
+        for (int i = 0; i < event.getEffectTypes().size() && i < event.getExpiryTimes().size(); i++) {
+            int effectKey = EquipmentEffectKeys.keyOf(event.getEffectTypes().get(i));
+            Map<String, EquipmentEffectComponent> effectsOfThisType = eqEffectsList.getEffectsOfType(effectKey);
+            EquipmentEffectComponent eec = effectsOfThisType == null ? null : effectsOfThisType.get(effectID);
+            if (eec != null) {
+                eec.expiresAt = event.getExpiryTimes().get(i);
+                invalidateCombinedEffect(entity, effectKey);
+            }
+        }
+    }
+
+    /**
+     * Forget the cached effect combinations of an entity once its list of equipment effects goes away.
+     *
+     * @param event         Event sent before the list of equipment effects is deactivated.
+     * @param entity        The entity being deactivated.
+     * @param eqEffectsList The list of equipment effects present on the entity.
+     */
+    @ReceiveEvent
+    public void onEffectsListDeactivated(BeforeDeactivateComponent event, EntityRef entity,
+                                         EquipmentEffectsListComponent eqEffectsList) {
+        combinedEffects.remove(entity);
+        aggregatedEffects.remove(entity);
+    }
+
     /**
      * When an effect modifier is going to be removed, first see if it was added in this system (or module). If so,
      * remove it from the equipment effects map. Otherwise, leave it alone as it was added by another system. Remember,
@@ -528,9 +949,9 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
             return;
         }
 
-        // Get the equipment effect component from the alterationEffectComponents map using the type name of the base
+        // Get the equipment effect component from the alterationEffectComponents map using the class of the base
         // alteration effect.
-        Class component = alterationEffectComponents.get(event.getAlterationEffect().getClass().getTypeName());
+        Class component = alterationEffectComponents.get(event.getAlterationEffect().getClass());
 
         // If effect doesn't exist in the map (not an equipment effect), return.
         if (component == null) {
@@ -538,14 +959,22 @@ public class EquipmentEffectsSystem extends BaseComponentSystem {
         }
 
         EquipmentEffectsListComponent eq = entity.getComponent(EquipmentEffectsListComponent.class);
+        int effectKey = EquipmentEffectKeys.keyOf(component, event.getId());
+        invalidateCombinedEffect(entity, effectKey);
+        if (multiDamageEffects.contains(component)) {
+            invalidateCombinedEffect(entity, EquipmentEffectKeys.keyOf(component, ""));
+        }
 
         // Set the duration of the old expired effect to be 0, and remove the equipment effect from the effects map. If
         // no items exist under that effect type, remove that first-layer of the map.
-        if (eq.effects.get(component.getTypeName() + event.getId()) != null) {
-            eq.effects.get(component.getTypeName() + event.getId()).get(event.getEffectId()).duration = 0;
-            eq.effects.get(component.getTypeName() + event.getId()).remove(event.getEffectId());
+        Map<String, EquipmentEffectComponent> effectsOfThisType = eq.getEffectsOfType(effectKey);
+        if (effectsOfThisType != null) {
+            EquipmentEffectComponent expired = effectsOfThisType.remove(event.getEffectId());
+            if (expired != null) {
+                expired.duration = 0;
+            }
         } else {
-            eq.effects.remove(component.getTypeName() + event.getId());
+            eq.removeEffectsOfType(effectKey);
         }
     }
 }
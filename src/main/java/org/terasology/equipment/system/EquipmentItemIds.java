@@ -0,0 +1,45 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+/**
+ * Derives the compact identifiers used to key an equipped item's effects and stat modifiers on its owner.
+ *
+ * Older versions of this module used the item's full JSON description as the key. Such keys are recognised by
+ * {@link #isLegacy(String)} so that saved worlds can be migrated when they are loaded.
+ */
+public final class EquipmentItemIds {
+    private EquipmentItemIds() {
+    }
+
+    /**
+     * Returns the identifier of an equipment item. Entity ids are kept when entities are persisted, so the identifier
+     * stays stable across saves.
+     *
+     * @param item the equipment item
+     * @return the item's entity id in decimal form
+     */
+    public static String of(EntityRef item) {
+        return Long.toString(item.getId());
+    }
+
+    /**
+     * Checks whether an identifier was created by an older version of this module, and should be replaced.
+     *
+     * @param id the identifier to check
+     * @return true if the identifier is set, but is not a compact item identifier
+     */
+    public static boolean isLegacy(String id) {
+        if (id == null || id.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
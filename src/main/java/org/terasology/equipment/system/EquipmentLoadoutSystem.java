@@ -0,0 +1,150 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.joml.Vector3f;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.characters.CharacterComponent;
+import org.terasology.engine.logic.health.DoDestroyEvent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentLoadoutsComponent;
+import org.terasology.equipment.event.ActivateLoadoutRequest;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.DropItemRequest;
+
+/**
+ * This authority system manages the named equipment loadouts of characters.
+ *
+ * The items of each loadout that isn't in use are kept in a separate equipment inventory entity. Switching to another
+ * loadout exchanges that entity with the character's current equipment inventory, instead of moving every item
+ * between inventories one by one.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class EquipmentLoadoutSystem extends BaseComponentSystem {
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private EquipmentSystem equipmentSystem;
+
+    /**
+     * Switches to a loadout when the owning client requests it.
+     *
+     * @param event     the event containing the name of the requested loadout
+     * @param character the character whose loadout is to be switched
+     * @param eq        the character's equipment component
+     */
+    @ReceiveEvent
+    public void onActivateLoadoutRequest(ActivateLoadoutRequest event, EntityRef character, EquipmentComponent eq) {
+        activateLoadout(character, event.getLoadout());
+    }
+
+    /**
+     * Switches a character to one of its named loadouts. The currently equipped items are stored under the name of
+     * the loadout that was in use, and the items stored in the requested loadout are equipped. A loadout that doesn't
+     * exist yet is created empty.
+     *
+     * @param character the character whose loadout is to be switched
+     * @param name      the name of the loadout to switch to
+     * @return true if the requested loadout is now in use
+     */
+    public boolean activateLoadout(EntityRef character, String name) {
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        if (eq == null || name == null || name.isEmpty()) {
+            return false;
+        }
+        if (eq.equipmentInventory == EntityRef.NULL) {
+            // The current loadout needs an inventory to be stored in.
+            equipmentSystem.getOrCreateEquipmentInventory(character);
+            eq = character.getComponent(EquipmentComponent.class);
+        }
+
+        EquipmentLoadoutsComponent loadouts = character.getComponent(EquipmentLoadoutsComponent.class);
+        boolean isNew = loadouts == null;
+        if (isNew) {
+            loadouts = new EquipmentLoadoutsComponent();
+        }
+        if (name.equals(loadouts.activeLoadout)) {
+            return true;
+        }
+
+        EntityRef inventory = loadouts.loadouts.get(name);
+        boolean isNewInventory = inventory == null || !inventory.exists();
+        if (isNewInventory) {
+            inventory = createLoadoutInventory(eq);
+        }
+
+        EntityRef previousInventory = equipmentSystem.swapEquipmentInventory(character, inventory);
+        if (previousInventory == EntityRef.NULL) {
+            if (isNewInventory) {
+                inventory.destroy();
+            }
+            return false;
+        }
+
+        loadouts.loadouts.remove(name);
+        loadouts.loadouts.put(loadouts.activeLoadout, previousInventory);
+        loadouts.activeLoadout = name;
+        if (isNew) {
+            character.addComponent(loadouts);
+        } else {
+            character.saveComponent(loadouts);
+        }
+        return true;
+    }
+
+    /**
+     * Drops the items of every stored loadout and destroys their inventories when the character dies. The items of
+     * the loadout in use are dropped by the EquipmentSystem.
+     *
+     * @param event     the event corresponding to the death of the character
+     * @param character the character who died
+     * @param loadouts  the character's stored loadouts
+     */
+    @ReceiveEvent(components = {CharacterComponent.class})
+    public void onCharacterDeath(DoDestroyEvent event, EntityRef character, EquipmentLoadoutsComponent loadouts) {
+        // The EquipmentLootBagSystem drops the stored loadouts into the character's loot bag instead.
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        if (eq != null && eq.dropIntoLootBag) {
+            return;
+        }
+
+        LocationComponent location = character.getComponent(LocationComponent.class);
+        Vector3f position = location == null ? new Vector3f() : location.getWorldPosition(new Vector3f());
+
+        for (EntityRef inventory : loadouts.loadouts.values()) {
+            InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+            if (inv != null) {
+                // Like the equipment inventory, the loadout inventory needs these components so that the items
+                // stored in it can be properly dropped onto the world.
+                inventory.addComponent(new LocationComponent());
+                inventory.addComponent(new CharacterComponent());
+
+                for (EntityRef item : inv.itemSlots) {
+                    if (item.exists()) {
+                        inventory.send(new DropItemRequest(item, inventory, new Vector3f(), position, 1));
+                    }
+                }
+            }
+            inventory.destroy();
+        }
+    }
+
+    private EntityRef createLoadoutInventory(EquipmentComponent eq) {
+        EntityRef inventory = entityManager.create("Equipment:EquipmentInventory");
+        InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+
+        for (int i = 0; i < eq.numberOfSlots; i++) {
+            inv.itemSlots.add(EntityRef.NULL);
+        }
+        inventory.saveComponent(inv);
+        return inventory;
+    }
+}
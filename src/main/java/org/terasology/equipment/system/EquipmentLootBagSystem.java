@@ -0,0 +1,231 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.joml.Vector3f;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.characters.CharacterComponent;
+import org.terasology.engine.logic.health.DoDestroyEvent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentLoadoutsComponent;
+import org.terasology.equipment.component.EquipmentLootBagComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.systems.InventoryManager;
+import org.terasology.module.inventory.systems.InventoryUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This authority system drops the equipment of dying characters whose equipment component has 'dropIntoLootBag' set
+ * into a single loot bag at the character's location, instead of as one pickup per item.
+ *
+ * If another loot bag is close by, the items are added to that bag instead, so a drop creates at most one entity.
+ * Bags despawn, together with whatever is left in them, once they are empty or DESPAWN_TIME has passed since items
+ * were last dropped into them.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class EquipmentLootBagSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** Items dropped within this distance (in blocks) of an existing bag are added to it. */
+    private static final float MERGE_RADIUS = 3f;
+
+    /** How long (in milliseconds) a bag stays around after items were last dropped into it. */
+    private static final long DESPAWN_TIME = 300000;
+
+    /** How often (in seconds) the bags are checked for despawning. */
+    private static final float CHECK_INTERVAL = 1f;
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private InventoryManager inventoryManager;
+
+    @In
+    private Time time;
+
+    /** Every active loot bag. */
+    private final Set<EntityRef> bags = new LinkedHashSet<>();
+
+    private float sinceLastCheck;
+
+    /**
+     * Moves every item equipped or stored in a loadout by a dying character into a loot bag.
+     *
+     * @param event     the event corresponding to the death of the character
+     * @param character the character who died
+     * @param eq        the character's equipment component
+     */
+    @ReceiveEvent(components = {CharacterComponent.class})
+    public void onCharacterDeath(DoDestroyEvent event, EntityRef character, EquipmentComponent eq) {
+        if (!eq.dropIntoLootBag) {
+            return;
+        }
+
+        List<EntityRef> inventories = new ArrayList<>();
+        if (eq.equipmentInventory != EntityRef.NULL) {
+            inventories.add(eq.equipmentInventory);
+        }
+        EquipmentLoadoutsComponent loadouts = character.getComponent(EquipmentLoadoutsComponent.class);
+        if (loadouts != null) {
+            inventories.addAll(loadouts.loadouts.values());
+        }
+
+        int itemCount = 0;
+        for (EntityRef inventory : inventories) {
+            InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+            if (inv != null) {
+                for (EntityRef item : inv.itemSlots) {
+                    if (item.exists()) {
+                        itemCount++;
+                    }
+                }
+            }
+        }
+
+        if (itemCount > 0) {
+            LocationComponent location = character.getComponent(LocationComponent.class);
+            Vector3f position = location == null ? new Vector3f() : location.getWorldPosition(new Vector3f());
+            fillBag(getBagNear(position), inventories, itemCount);
+        }
+
+        // Anything that couldn't be moved stays in its inventory, rather than being destroyed with it.
+        for (EntityRef inventory : inventories) {
+            InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+            if (inv == null || isEmpty(inv)) {
+                inventory.destroy();
+            }
+        }
+    }
+
+    /**
+     * Keeps track of loot bags as they are created or loaded.
+     *
+     * @param event   the event corresponding to the activation of the bag
+     * @param bag     the loot bag
+     * @param lootBag the loot bag component associated with the bag
+     */
+    @ReceiveEvent
+    public void onLootBagActivated(OnActivatedComponent event, EntityRef bag, EquipmentLootBagComponent lootBag) {
+        bags.add(bag);
+    }
+
+    /**
+     * Forgets a loot bag that is going away.
+     *
+     * @param event   the event corresponding to the deactivation of the bag
+     * @param bag     the loot bag
+     * @param lootBag the loot bag component associated with the bag
+     */
+    @ReceiveEvent
+    public void onLootBagDeactivated(BeforeDeactivateComponent event, EntityRef bag,
+                                     EquipmentLootBagComponent lootBag) {
+        bags.remove(bag);
+    }
+
+    /**
+     * Once every CHECK_INTERVAL, destroy the loot bags that are empty or whose time is up.
+     *
+     * @param delta The time (in seconds) since the last engine update.
+     */
+    @Override
+    public void update(float delta) {
+        sinceLastCheck += delta;
+        if (sinceLastCheck < CHECK_INTERVAL || bags.isEmpty()) {
+            return;
+        }
+        sinceLastCheck = 0;
+
+        long now = time.getGameTimeInMs();
+        List<EntityRef> expired = new ArrayList<>();
+        for (EntityRef bag : bags) {
+            EquipmentLootBagComponent lootBag = bag.getComponent(EquipmentLootBagComponent.class);
+            InventoryComponent inv = bag.getComponent(InventoryComponent.class);
+            if (lootBag == null || inv == null || lootBag.despawnAt <= now || isEmpty(inv)) {
+                expired.add(bag);
+            }
+        }
+
+        for (EntityRef bag : expired) {
+            bags.remove(bag);
+            InventoryComponent inv = bag.getComponent(InventoryComponent.class);
+            if (inv != null) {
+                for (EntityRef item : inv.itemSlots) {
+                    if (item.exists()) {
+                        item.destroy();
+                    }
+                }
+            }
+            bag.destroy();
+        }
+    }
+
+    private EntityRef getBagNear(Vector3f position) {
+        float maxDistanceSquared = MERGE_RADIUS * MERGE_RADIUS;
+        Vector3f bagPosition = new Vector3f();
+        for (EntityRef bag : bags) {
+            LocationComponent location = bag.getComponent(LocationComponent.class);
+            if (location != null && location.getWorldPosition(bagPosition).distanceSquared(position)
+                    <= maxDistanceSquared) {
+                return bag;
+            }
+        }
+        return entityManager.create("Equipment:LootBag", position);
+    }
+
+    private void fillBag(EntityRef bag, List<EntityRef> inventories, int itemCount) {
+        // Reuse the empty slots of the bag, and only add as many slots as are still needed for every item to fit.
+        InventoryComponent bagInv = bag.getComponent(InventoryComponent.class);
+        List<Integer> freeSlots = new ArrayList<>();
+        for (int i = 0; i < bagInv.itemSlots.size(); i++) {
+            if (!bagInv.itemSlots.get(i).exists()) {
+                freeSlots.add(i);
+            }
+        }
+        while (freeSlots.size() < itemCount) {
+            freeSlots.add(bagInv.itemSlots.size());
+            bagInv.itemSlots.add(EntityRef.NULL);
+        }
+        bag.saveComponent(bagInv);
+
+        int free = 0;
+        for (EntityRef inventory : inventories) {
+            InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+            if (inv != null) {
+                for (int i = 0; i < inv.itemSlots.size(); i++) {
+                    EntityRef item = inv.itemSlots.get(i);
+                    if (item.exists() && inventoryManager.moveItem(inventory, inventory, i, bag, freeSlots.get(free),
+                            InventoryUtils.getStackCount(item))) {
+                        free++;
+                    }
+                }
+            }
+        }
+
+        EquipmentLootBagComponent lootBag = bag.getComponent(EquipmentLootBagComponent.class);
+        lootBag.despawnAt = time.getGameTimeInMs() + DESPAWN_TIME;
+        bag.saveComponent(lootBag);
+    }
+
+    private static boolean isEmpty(InventoryComponent inv) {
+        for (EntityRef item : inv.itemSlots) {
+            if (item.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
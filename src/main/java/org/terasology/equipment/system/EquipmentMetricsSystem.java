@@ -0,0 +1,145 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.Share;
+import org.terasology.equipment.metrics.EquipmentMetric;
+import org.terasology.equipment.metrics.EquipmentMetricStats;
+import org.terasology.equipment.metrics.EquipmentMetricsReporter;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This system collects counters and latency histograms of the hot paths of the equipment systems, and shows them
+ * through the "equipmentMetrics" console command. Reporters can be registered to receive them at a regular interval.
+ */
+@RegisterSystem
+@Share(EquipmentMetricsSystem.class)
+public class EquipmentMetricsSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** How often (in seconds) the registered reporters receive the metrics. */
+    private static final float REPORT_INTERVAL = 60f;
+
+    private final Map<EquipmentMetric, EquipmentMetricStats> stats = new EnumMap<>(EquipmentMetric.class);
+    private final List<EquipmentMetricsReporter> reporters = new CopyOnWriteArrayList<>();
+    private float sinceLastReport;
+
+    public EquipmentMetricsSystem() {
+        for (EquipmentMetric metric : EquipmentMetric.values()) {
+            stats.put(metric, new EquipmentMetricStats());
+        }
+    }
+
+    /**
+     * Records the duration of an operation that started at the given time.
+     *
+     * @param metric     the metric of the operation
+     * @param startNanos the value of System.nanoTime() when the operation started
+     */
+    public void recordSince(EquipmentMetric metric, long startNanos) {
+        stats.get(metric).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records one occurrence of a metric with the given value.
+     *
+     * @param metric the metric to record
+     * @param value  the value of this occurrence
+     */
+    public void record(EquipmentMetric metric, long value) {
+        stats.get(metric).record(value);
+    }
+
+    /**
+     * Registers a reporter that receives all metrics at a regular interval.
+     *
+     * @param reporter the reporter to add
+     */
+    public void addReporter(EquipmentMetricsReporter reporter) {
+        reporters.add(reporter);
+    }
+
+    /**
+     * Stops sending metrics to a reporter.
+     *
+     * @param reporter the reporter to remove
+     */
+    public void removeReporter(EquipmentMetricsReporter reporter) {
+        reporters.remove(reporter);
+    }
+
+    /**
+     * @return the current statistics of every metric
+     */
+    public Map<EquipmentMetric, EquipmentMetricStats.Snapshot> snapshot() {
+        Map<EquipmentMetric, EquipmentMetricStats.Snapshot> snapshot = new EnumMap<>(EquipmentMetric.class);
+        for (Map.Entry<EquipmentMetric, EquipmentMetricStats> metricStats : stats.entrySet()) {
+            snapshot.put(metricStats.getKey(), metricStats.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Sends the metrics to the registered reporters once every REPORT_INTERVAL.
+     *
+     * @param delta The time (in seconds) since the last engine update.
+     */
+    @Override
+    public void update(float delta) {
+        sinceLastReport += delta;
+        if (sinceLastReport < REPORT_INTERVAL) {
+            return;
+        }
+        sinceLastReport = 0;
+
+        if (!reporters.isEmpty()) {
+            Map<EquipmentMetric, EquipmentMetricStats.Snapshot> snapshot = snapshot();
+            for (EquipmentMetricsReporter reporter : reporters) {
+                reporter.report(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Shows the metrics of the equipment systems, or resets them.
+     *
+     * @param action "reset" to clear all metrics, or nothing to show them
+     * @return the metrics of the equipment systems
+     */
+    @Command(shortDescription = "Shows the metrics of the equipment systems",
+            helpText = "Shows how often the hot paths of the equipment systems ran and how long they took. Use "
+                    + "'equipmentMetrics reset' to clear them.",
+            runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String equipmentMetrics(@CommandParam(value = "action", required = false) String action) {
+        if ("reset".equalsIgnoreCase(action)) {
+            for (EquipmentMetricStats metricStats : stats.values()) {
+                metricStats.reset();
+            }
+            return "Equipment metrics have been reset.";
+        }
+
+        StringBuilder builder = new StringBuilder("Equipment metrics (durations in microseconds):");
+        for (Map.Entry<EquipmentMetric, EquipmentMetricStats.Snapshot> metric : snapshot().entrySet()) {
+            EquipmentMetricStats.Snapshot s = metric.getValue();
+            builder.append('\n').append(metric.getKey().getDisplayName()).append(": count=").append(s.getCount());
+            if (metric.getKey().isTimed()) {
+                builder.append(" mean=").append(s.getMean() / 1000)
+                        .append(" p50<=").append(s.getP50() / 1000)
+                        .append(" p99<=").append(s.getP99() / 1000)
+                        .append(" max=").append(s.getMax() / 1000);
+            } else {
+                builder.append(" total=").append(s.getTotal());
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,76 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers when each on-hit effect of a weapon was last applied to each target, so that fast or multi-target attacks
+ * don't re-apply the same effect on every hit. A re-application inside the cooldown window is coalesced into the
+ * previous one, which is still running on the target.
+ *
+ * The effects of a weapon are identified by their position in its list of enemy effects, so a check is just a
+ * timestamp comparison. Whenever a target is hit, the weapons whose cooldowns on it have all passed are forgotten, so
+ * that a long-lived target only keeps the weapons that have hit it recently.
+ */
+public class EquipmentOnHitCooldowns {
+    /** For each target, and each weapon that has hit it, the game time at which each effect may be applied again. */
+    private final Map<EntityRef, Map<EntityRef, long[]>> readyAt = new HashMap<>();
+
+    /**
+     * Checks whether an effect of a weapon may be applied to a target, and if so, starts its cooldown.
+     *
+     * @param weapon      the weapon dealing the hit
+     * @param target      the entity being hit
+     * @param effect      the position of the effect in the weapon's list of enemy effects
+     * @param effectCount the number of enemy effects of the weapon
+     * @param now         the current game time (in milliseconds)
+     * @param window      how long (in milliseconds) the effect isn't applied again after this
+     * @return true if the effect should be applied now, false if it was applied too recently
+     */
+    public boolean tryApply(EntityRef weapon, EntityRef target, int effect, int effectCount, long now, long window) {
+        Map<EntityRef, long[]> weapons = readyAt.computeIfAbsent(target, t -> new HashMap<>());
+        dropExpired(weapons, now);
+        long[] effects = weapons.get(weapon);
+        if (effects == null || effects.length < effectCount) {
+            effects = effects == null ? new long[effectCount] : Arrays.copyOf(effects, effectCount);
+            weapons.put(weapon, effects);
+        }
+
+        if (now < effects[effect]) {
+            return false;
+        }
+        effects[effect] = now + window;
+        return true;
+    }
+
+    /**
+     * Forgets the weapons whose cooldowns on one target have all passed.
+     *
+     * @param weapons the game time at which each effect of each weapon may be applied to the target again
+     * @param now     the current game time (in milliseconds)
+     */
+    private static void dropExpired(Map<EntityRef, long[]> weapons, long now) {
+        weapons.values().removeIf(effects -> {
+            for (long ready : effects) {
+                if (now < ready) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Forgets the cooldowns of a target that is going away.
+     *
+     * @param target the entity that was hit
+     */
+    public void evict(EntityRef target) {
+        readyAt.remove(target);
+    }
+}
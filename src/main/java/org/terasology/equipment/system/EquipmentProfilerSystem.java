@@ -0,0 +1,404 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.engine.logic.console.ConsoleMessageEvent;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.console.commandSystem.annotations.Sender;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.In;
+import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentEffectComponent;
+import org.terasology.equipment.component.EquipmentEffectsListComponent;
+import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.component.EquipmentSlotLayout;
+import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.LoadoutChangedEvent;
+import org.terasology.equipment.event.UnequipItemEvent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.physicalstats.component.PhysicalStatsModifiersListComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This authority system provides the "profileEquipment" console command, which finds the entities that carry the
+ * most equipment state or change their equipment most often.
+ *
+ * The entities are sampled a few at a time on every update, so that even a large world doesn't stall the game. Only
+ * the top entities of each ranking are kept. The progress is sent to the console of whoever ran the command every few
+ * batches, and the rankings once all entities have been looked at.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class EquipmentProfilerSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** How many entities are sampled per update. */
+    private static final int ENTITIES_PER_UPDATE = 64;
+
+    /** Rough size (in bytes) of a map entry together with the object it refers to. */
+    private static final int ENTRY_BYTES = 80;
+
+    /** Rough size (in bytes) of a reference to an entity held in a list. */
+    private static final int ENTITY_REF_BYTES = 8;
+
+    /** Rough size (in bytes) of an ArrayList together with its default backing array. */
+    private static final int LIST_BYTES = 80;
+
+    /** How many elements the default backing array of an ArrayList holds. */
+    private static final int LIST_CAPACITY = 10;
+
+    /** Rough size (in bytes) of an EquipmentSlot object, not counting its strings and item list. */
+    private static final int SLOT_BYTES = 32;
+
+    /** Rough size (in bytes) of a String object, not counting its characters. */
+    private static final int STRING_BYTES = 40;
+
+    /** After how many updates the progress of a running profile is sent. */
+    private static final int UPDATES_PER_PROGRESS = 32;
+
+    /** How many entities are listed per ranking, unless the command asks for another number. */
+    private static final int DEFAULT_TOP_COUNT = 10;
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private Time time;
+
+    /** How many times each entity has equipped or unequipped an item since it was first seen doing so. */
+    private final Map<EntityRef, EquipmentActivity> activity = new HashMap<>();
+
+    /** The profile currently being taken, or null if there is none. */
+    private ProfileJob job;
+
+    /**
+     * Counts an item being equipped by an entity.
+     *
+     * @param event  the event corresponding to the equipment of the item
+     * @param entity the entity who has equipped the item
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquip(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        countActivity(entity, 1);
+    }
+
+    /**
+     * Counts an item being unequipped by an entity.
+     *
+     * @param event  the event corresponding to the unequipment of the item
+     * @param entity the entity who has unequipped the item
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onUnequip(UnequipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        countActivity(entity, 1);
+    }
+
+    /**
+     * Counts every item equipped and unequipped by an entity in one loadout change.
+     *
+     * @param event  the event corresponding to the change of the loadout
+     * @param entity the entity whose loadout has changed
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onLoadoutChanged(LoadoutChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        countActivity(entity, event.getEquippedItems().size() + event.getUnequippedItems().size());
+    }
+
+    /**
+     * Forgets the activity of an entity that is going away.
+     *
+     * @param event  the event corresponding to the deactivation of the entity
+     * @param entity the entity being deactivated
+     * @param eq     the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquipmentDeactivated(BeforeDeactivateComponent event, EntityRef entity, EquipmentComponent eq) {
+        activity.remove(entity);
+    }
+
+    /**
+     * Starts profiling the equipment state of every entity that can equip items.
+     *
+     * @param sender the client who ran the command, who receives the results
+     * @param count  how many entities to list per ranking
+     * @return a message saying that profiling has started
+     */
+    @Command(shortDescription = "Lists the entities with the most equipment state",
+            helpText = "Samples every entity that can equip items, a few per frame, and lists those with the largest "
+                    + "estimated memory footprint and the highest equip/unequip rate.",
+            runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String profileEquipment(@Sender EntityRef sender,
+                                   @CommandParam(value = "count", required = false) Integer count) {
+        if (job != null) {
+            return "Equipment profiling is already running, " + job.sampled + " entities sampled so far.";
+        }
+
+        // The entities are iterated a batch per update rather than copied up front, so entities created or destroyed
+        // while the profile runs may or may not be included.
+        Iterator<EntityRef> entities = entityManager.getEntitiesWith(EquipmentComponent.class).iterator();
+        job = new ProfileJob(sender, entities, count == null || count <= 0 ? DEFAULT_TOP_COUNT : count);
+        return "Profiling the equipment of every entity that can equip items...";
+    }
+
+    /**
+     * Samples the next few entities of the running profile. The progress is sent every few batches, and the results
+     * once all entities are done.
+     *
+     * @param delta The time (in seconds) since the last engine update.
+     */
+    @Override
+    public void update(float delta) {
+        if (job == null) {
+            return;
+        }
+
+        long now = time.getGameTimeInMs();
+        boolean done;
+        try {
+            for (int i = 0; i < ENTITIES_PER_UPDATE && job.entities.hasNext(); i++) {
+                EntityRef entity = job.entities.next();
+                if (entity.exists()) {
+                    job.add(sample(entity, now));
+                }
+            }
+            done = !job.entities.hasNext();
+        } catch (ConcurrentModificationException e) {
+            // The entity store changed in a way its iterator can't follow, so report what has been sampled.
+            done = true;
+        }
+
+        if (done) {
+            sendResults(job);
+            job = null;
+        } else if (++job.updates % UPDATES_PER_PROGRESS == 0) {
+            sendProgress(job);
+        }
+    }
+
+    private void countActivity(EntityRef entity, int changes) {
+        EquipmentActivity entityActivity = activity.get(entity);
+        if (entityActivity == null) {
+            entityActivity = new EquipmentActivity(time.getGameTimeInMs());
+            activity.put(entity, entityActivity);
+        }
+        entityActivity.changes += changes;
+    }
+
+    private EntitySample sample(EntityRef entity, long now) {
+        EntitySample sample = new EntitySample(entity);
+
+        EquipmentComponent eq = entity.getComponent(EquipmentComponent.class);
+        if (eq != null) {
+            // The names and types of indexed slots are shared with every entity of the same slot layout, and are
+            // only counted when they are not. The slots aren't indexed here, so that profiling doesn't change them.
+            EquipmentSlotLayout layout = eq.getIndexedSlotLayout();
+            sample.slotBytes += listBytes(eq.equipmentSlots.size());
+            for (int i = 0; i < eq.equipmentSlots.size(); i++) {
+                EquipmentSlot slot = eq.equipmentSlots.get(i);
+                sample.slotBytes += SLOT_BYTES + listBytes(slot.itemRefs.size());
+                if (layout == null || slot.name != layout.getName(i)) {
+                    sample.slotBytes += stringBytes(slot.name);
+                }
+                if (layout == null || slot.type != layout.getType(i)) {
+                    sample.slotBytes += stringBytes(slot.type);
+                }
+            }
+            sample.bytes += sample.slotBytes;
+        }
+
+        EquipmentEffectsListComponent effectsList = entity.getComponent(EquipmentEffectsListComponent.class);
+        if (effectsList != null) {
+            sample.effectBuckets = effectsList.effects.size();
+            for (Map.Entry<String, Map<String, EquipmentEffectComponent>> effectsOfType
+                    : effectsList.effects.entrySet()) {
+                sample.bytes += ENTRY_BYTES + stringBytes(effectsOfType.getKey());
+                for (Map.Entry<String, EquipmentEffectComponent> effect : effectsOfType.getValue().entrySet()) {
+                    sample.effects++;
+                    sample.effectIdBytes += stringBytes(effect.getKey());
+                    // The effect usually shares the String instance of its key, which then isn't counted twice.
+                    if (effect.getValue() != null && effect.getValue().effectID != effect.getKey()) {
+                        sample.effectIdBytes += stringBytes(effect.getValue().effectID);
+                    }
+                }
+            }
+            sample.bytes += sample.effects * ENTRY_BYTES + sample.effectIdBytes;
+        }
+
+        PhysicalStatsModifiersListComponent modifiers = entity.getComponent(PhysicalStatsModifiersListComponent.class);
+        if (modifiers != null) {
+            sample.modifiers = modifiers.modifiers.size();
+            sample.bytes += (long) sample.modifiers * ENTRY_BYTES;
+            for (String id : modifiers.modifiers.keySet()) {
+                sample.bytes += stringBytes(id);
+            }
+        }
+
+        EquipmentActivity entityActivity = activity.get(entity);
+        if (entityActivity != null) {
+            // Changes per minute since the entity was first seen changing its equipment.
+            sample.changesPerMinute = entityActivity.changes * 60000.0 / Math.max(1000, now - entityActivity.since);
+        }
+        return sample;
+    }
+
+    private static long listBytes(int size) {
+        return LIST_BYTES + (long) Math.max(0, size - LIST_CAPACITY) * ENTITY_REF_BYTES;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : STRING_BYTES + s.length();
+    }
+
+    private void sendProgress(ProfileJob running) {
+        EntitySample largest = running.largest();
+        send(running.sender, "Profiled " + running.sampled + " entities so far"
+                + (largest == null ? "." : ", the largest so far is " + describe(largest.entity) + " with "
+                + largest.bytes + " bytes."));
+    }
+
+    private void sendResults(ProfileJob finished) {
+        send(finished.sender, "Largest equipment state (estimated bytes):");
+        for (EntitySample sample : finished.drain(finished.largest)) {
+            send(finished.sender, String.format("  %s: %d bytes, %d bytes of slots, %d effect buckets, %d effects, "
+                            + "%d modifiers, %d bytes of effect ids", describe(sample.entity), sample.bytes,
+                    sample.slotBytes, sample.effectBuckets, sample.effects, sample.modifiers, sample.effectIdBytes));
+        }
+
+        send(finished.sender, "Most frequent equipment changes (equips and unequips per minute):");
+        for (EntitySample sample : finished.drain(finished.busiest)) {
+            send(finished.sender, String.format("  %s: %.1f per minute", describe(sample.entity),
+                    sample.changesPerMinute));
+        }
+        send(finished.sender, "Profiled " + finished.sampled + " entities, sharing " + EquipmentSlotLayout.count()
+                + " slot layouts.");
+    }
+
+    private static String describe(EntityRef entity) {
+        DisplayNameComponent displayName = entity.getComponent(DisplayNameComponent.class);
+        if (displayName != null && displayName.name != null && !displayName.name.isEmpty()) {
+            return displayName.name + " (" + entity.getId() + ")";
+        }
+        return entity.getParentPrefab() != null
+                ? entity.getParentPrefab().getName() + " (" + entity.getId() + ")"
+                : "Entity " + entity.getId();
+    }
+
+    private static void send(EntityRef sender, String message) {
+        sender.send(new ConsoleMessageEvent(message));
+    }
+
+    /**
+     * How often one entity has changed its equipment.
+     */
+    private static final class EquipmentActivity {
+        private final long since;
+        private long changes;
+
+        private EquipmentActivity(long since) {
+            this.since = since;
+        }
+    }
+
+    /**
+     * The equipment state of one entity, as sampled for a profile.
+     */
+    private static final class EntitySample {
+        private final EntityRef entity;
+        private long slotBytes;
+        private int effectBuckets;
+        private int effects;
+        private int modifiers;
+        private long effectIdBytes;
+        private long bytes;
+        private double changesPerMinute;
+
+        private EntitySample(EntityRef entity) {
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * A profile that is being taken. Only the top entities of each ranking are kept, in heaps whose smallest entry is
+     * replaced by any larger sample, so a profile takes the same memory no matter how many entities it looks at.
+     */
+    private static final class ProfileJob {
+        private final EntityRef sender;
+        private final Iterator<EntityRef> entities;
+        private final int topCount;
+        private final PriorityQueue<EntitySample> largest =
+                new PriorityQueue<>(Comparator.comparingLong((EntitySample sample) -> sample.bytes));
+        private final PriorityQueue<EntitySample> busiest =
+                new PriorityQueue<>(Comparator.comparingDouble((EntitySample sample) -> sample.changesPerMinute));
+        private int sampled;
+        private int updates;
+
+        private ProfileJob(EntityRef sender, Iterator<EntityRef> entities, int topCount) {
+            this.sender = sender;
+            this.entities = entities;
+            this.topCount = topCount;
+        }
+
+        private void add(EntitySample sample) {
+            sampled++;
+            offer(largest, sample);
+            if (sample.changesPerMinute > 0) {
+                offer(busiest, sample);
+            }
+        }
+
+        private void offer(PriorityQueue<EntitySample> ranking, EntitySample sample) {
+            ranking.add(sample);
+            if (ranking.size() > topCount) {
+                ranking.poll();
+            }
+        }
+
+        /**
+         * @return the sample with the most bytes so far, or null if there is none yet
+         */
+        private EntitySample largest() {
+            EntitySample top = null;
+            for (EntitySample sample : largest) {
+                if (top == null || sample.bytes > top.bytes) {
+                    top = sample;
+                }
+            }
+            return top;
+        }
+
+        /**
+         * Empties a ranking.
+         *
+         * @param ranking one of the rankings of this profile
+         * @return the samples of the ranking, highest first
+         */
+        private List<EntitySample> drain(PriorityQueue<EntitySample> ranking) {
+            List<EntitySample> samples = new ArrayList<>(ranking.size());
+            while (!ranking.isEmpty()) {
+                samples.add(ranking.poll());
+            }
+            Collections.reverse(samples);
+            return samples;
+        }
+    }
+}
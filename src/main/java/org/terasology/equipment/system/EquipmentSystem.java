@@ -6,41 +6,55 @@ import org.joml.Vector3f;
 import org.terasology.engine.audio.AudioManager;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.logic.characters.CharacterComponent;
 import org.terasology.engine.logic.common.DisplayNameComponent;
 import org.terasology.engine.logic.health.DoDestroyEvent;
 import org.terasology.engine.logic.location.LocationComponent;
-import org.terasology.engine.logic.players.LocalPlayer;
 import org.terasology.engine.logic.players.event.OnPlayerSpawnedEvent;
+import org.terasology.engine.network.NetFilterEvent;
 import org.terasology.engine.registry.CoreRegistry;
 import org.terasology.engine.registry.In;
-import org.terasology.engine.rendering.nui.NUIManager;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.equipment.component.EquipmentComponent;
+import org.terasology.equipment.component.EquipmentDamageTypes;
 import org.terasology.equipment.component.EquipmentInventoryComponent;
 import org.terasology.equipment.component.EquipmentItemComponent;
 import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.component.EquipmentSlotLayout;
 import org.terasology.equipment.event.EquipItemEvent;
+import org.terasology.equipment.event.EquipmentInventoryRequest;
+import org.terasology.equipment.event.LoadoutChangedEvent;
 import org.terasology.equipment.event.OnPlayerWithEquipSpawnedEvent;
 import org.terasology.equipment.event.UnequipItemEvent;
-import org.terasology.equipment.ui.CharacterScreenWindow;
+import org.terasology.equipment.metrics.EquipmentMetric;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.module.health.events.BeforeDamagedEvent;
 import org.terasology.module.inventory.components.InventoryComponent;
 import org.terasology.module.inventory.events.BeforeItemPutInInventory;
 import org.terasology.module.inventory.events.BeforeItemRemovedFromInventory;
 import org.terasology.module.inventory.events.DropItemRequest;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
 import org.terasology.module.inventory.systems.InventoryManager;
-import org.terasology.module.inventory.systems.InventoryUtils;
 import org.terasology.module.inventory.ui.GetItemTooltip;
 import org.terasology.nui.widgets.TooltipLine;
 import org.terasology.physicalstats.component.PhysicalStatsModifierComponent;
 import org.terasology.physicalstats.component.PhysicalStatsModifiersListComponent;
-import org.terasology.physicalstats.event.OnPhysicalStatChangedEvent;
-import org.terasology.physicalstats.event.OnPhysicalStatsModifierAddedEvent;
-import org.terasology.physicalstats.event.OnPhysicalStatsModifierRemovedEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This system handles all equipment-related operations.
@@ -51,10 +65,31 @@ public class EquipmentSystem extends BaseComponentSystem {
     EntityManager entityManager;
 
     @In
-    private NUIManager nuiManager;
+    private AudioManager audioManager;
+
+    @In
+    private EquipmentMetricsSystem metrics;
 
     @In
-    private LocalPlayer localPlayer;
+    private EquipmentArchetypeRegistry archetypes;
+
+    /** Summed attack and defense of the equipped items of each character, read by the damage hooks. */
+    private final EquipmentCombatTotals combatTotals = new EquipmentCombatTotals();
+
+    /** The damage type index of each damage type prefab seen so far, or -1 if no item had a defense against it. */
+    private final Map<Prefab, Integer> damageTypeIndices = new HashMap<>();
+
+    /** The number of registered damage types when damageTypeIndices was last checked for unknown damage types. */
+    private int knownDamageTypes;
+
+    /** The tooltip lines of equipment items, shared by items with the same prefab and stats. */
+    private final EquipmentTooltipCache tooltipCache = new EquipmentTooltipCache();
+
+    /** Empty slots and item positions of the character and equipment inventories touched by equipment changes. */
+    private final InventorySlotIndex slotIndex = new InventorySlotIndex();
+
+    /** Set while a loadout change moves items, so that the moves don't equip or unequip the items one by one. */
+    private boolean applyingLoadout;
 
     /**
      * Called on startup for initialization.
@@ -63,6 +98,14 @@ public class EquipmentSystem extends BaseComponentSystem {
     public void initialise() {
     }
 
+    /**
+     * Called on shutdown, so that the slot layouts of this game aren't kept around for the next one.
+     */
+    @Override
+    public void shutdown() {
+        EquipmentSlotLayout.clear();
+    }
+
     /**
      * Method that defines what happens when an item is put into an equipment slot.
      *
@@ -74,6 +117,10 @@ public class EquipmentSystem extends BaseComponentSystem {
     @ReceiveEvent
     public void itemPutIntoEquipmentSlot(BeforeItemPutInInventory event, EntityRef entity,
                                          EquipmentInventoryComponent eqInv, InventoryComponent inventory) {
+        // Loadout changes update the equipment themselves once all items have been moved.
+        if (applyingLoadout) {
+            return;
+        }
 
         // Ensure that this item is actually a piece of equipment. If not, consume the event and return.
         if (!event.getItem().hasComponent(EquipmentItemComponent.class)) {
@@ -82,9 +129,11 @@ public class EquipmentSystem extends BaseComponentSystem {
         }
 
         // If the equip action fails, consume the event.
+        long start = System.nanoTime();
         if (!equipItem(event.getInstigator(), event.getItem(), event.getSlot(), entity)) {
             event.consume();
         }
+        metrics.recordSince(EquipmentMetric.EQUIP, start);
 
         int slot = event.getSlot();
         boolean hasValidation = false;
@@ -106,6 +155,10 @@ public class EquipmentSystem extends BaseComponentSystem {
     @ReceiveEvent
     public void itemRemovedFromEquipmentSlot(BeforeItemRemovedFromInventory event, EntityRef entity,
                                              EquipmentInventoryComponent eqInv, InventoryComponent inventory) {
+        // Loadout changes update the equipment themselves once all items have been moved.
+        if (applyingLoadout) {
+            return;
+        }
 
         // Ensure that this item is actually a piece of equipment. If not, return.
         if (!event.getItem().hasComponent(EquipmentItemComponent.class)) {
@@ -114,9 +167,11 @@ public class EquipmentSystem extends BaseComponentSystem {
         }
 
         // If the unequip action fails, consume the event.
+        long start = System.nanoTime();
         if (!unequipItem(event.getInstigator(), event.getItem())) {
             event.consume();
         }
+        metrics.recordSince(EquipmentMetric.UNEQUIP, start);
 
         int slot = event.getSlot();
         boolean hasValidation = false;
@@ -128,7 +183,8 @@ public class EquipmentSystem extends BaseComponentSystem {
     }
 
     /**
-     * Initializes equipment and inventory-related components when the player spawns.
+     * Lets other systems know that a player with equipment has spawned. The equipment inventory is only created
+     * once it is first needed, see {@link #getOrCreateEquipmentInventory(EntityRef)}.
      *
      * @param event the event corresponding to the spawning of the player
      * @param player an EntityRef pointing to the player
@@ -137,69 +193,55 @@ public class EquipmentSystem extends BaseComponentSystem {
     @ReceiveEvent
     public void onPlayerSpawn(OnPlayerSpawnedEvent event, EntityRef player, EquipmentComponent eq) {
         player.send(new OnPlayerWithEquipSpawnedEvent());
-        /*
-        if (eq.equipmentInventory == EntityRef.NULL) {
-            // Instantiate the EquipmentInventory entity companion and store a reference to it in the player's
-            // EquipmentComponent.
-            eq.equipmentInventory = entityManager.create("Equipment:EquipmentInventory");
-            InventoryComponent inv = eq.equipmentInventory.getComponent(InventoryComponent.class);
-
-            for (int i = 0; i < eq.numberOfSlots; i++) {
-                inv.itemSlots.add(EntityRef.NULL);
-            }
-
-            // Save the equipment components.
-            eq.equipmentInventory.saveComponent(inv);
-            player.saveComponent(eq);
-
-            // Toggle the CharacterScreen on in case it was NULL.
-            nuiManager.toggleScreen("Equipment:BackupScreen");
-            CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
+    }
 
-            // Reinitialize the CharacterScreen so the labels and references are setup properly.
-            if (screen != null) {
-                screen.initialise();
-                screen.updateStats();
-            }
+    /**
+     * Creates the equipment inventory of a character when its client first needs it.
+     *
+     * @param event the event corresponding to the request for the equipment inventory
+     * @param character the character whose equipment inventory is requested
+     * @param eq the character's equipment component
+     */
+    @ReceiveEvent
+    public void onEquipmentInventoryRequest(EquipmentInventoryRequest event, EntityRef character,
+                                            EquipmentComponent eq) {
+        getOrCreateEquipmentInventory(character);
+    }
 
-            // Toggle off the CharacterScreen.
-            nuiManager.toggleScreen("Equipment:BackupScreen");
+    /**
+     * Returns the equipment inventory of a character, creating it first if it doesn't exist yet. The equipment
+     * inventory isn't created when the character spawns, but the first time something needs it.
+     *
+     * If the inventory exists but has fewer slots than the character's equipment, the missing slots are added.
+     *
+     * @param character the character whose equipment inventory is needed
+     * @return the equipment inventory, or EntityRef.NULL if the character can't equip items
+     */
+    public EntityRef getOrCreateEquipmentInventory(EntityRef character) {
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        if (eq == null) {
+            return EntityRef.NULL;
         }
-        */
-    }
 
-    @ReceiveEvent
-    public void onPlayerSpawn(OnPlayerWithEquipSpawnedEvent event, EntityRef player, EquipmentComponent eq) {
-        if (eq.equipmentInventory == EntityRef.NULL) {
-            // Instantiate the EquipmentInventory entity companion and store a reference to it in the player's
+        boolean isNew = eq.equipmentInventory == EntityRef.NULL;
+        if (isNew) {
+            // Instantiate the EquipmentInventory entity companion and store a reference to it in the character's
             // EquipmentComponent.
             eq.equipmentInventory = entityManager.create("Equipment:EquipmentInventory");
-            InventoryComponent inv = eq.equipmentInventory.getComponent(InventoryComponent.class);
+        }
 
-            for (int i = 0; i < eq.numberOfSlots; i++) {
+        InventoryComponent inv = eq.equipmentInventory.getComponent(InventoryComponent.class);
+        if (inv != null && inv.itemSlots.size() < eq.numberOfSlots) {
+            while (inv.itemSlots.size() < eq.numberOfSlots) {
                 inv.itemSlots.add(EntityRef.NULL);
             }
-
-            // Save the equipment components.
             eq.equipmentInventory.saveComponent(inv);
-            player.saveComponent(eq);
-
-            if (localPlayer != null) {
-                // Toggle the CharacterScreen on in case it was NULL.
-                nuiManager.toggleScreen("Equipment:BackupScreen");
-                CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
-
-                // Reinitialize the CharacterScreen so the labels and references are setup properly.
-                if (screen != null) {
-                    //screen.initialise();
-                    screen.reInit();
-                    screen.updateStats();
-                }
+        }
 
-                // Toggle off the CharacterScreen.
-                nuiManager.toggleScreen("Equipment:BackupScreen");
-            }
+        if (isNew) {
+            character.saveComponent(eq);
         }
+        return eq.equipmentInventory;
     }
 
     /**
@@ -211,6 +253,11 @@ public class EquipmentSystem extends BaseComponentSystem {
      */
     @ReceiveEvent(components = {CharacterComponent.class})
     public void onPlayerDeath(DoDestroyEvent event, EntityRef player, EquipmentComponent eq) {
+        // The EquipmentLootBagSystem drops everything into a single loot bag instead.
+        if (eq.dropIntoLootBag) {
+            return;
+        }
+
         if (eq.equipmentInventory != EntityRef.NULL) {
             // Add a CharacterComponent and LocationComponent to the equipment inventory entity so that the items
             // stored in it can be properly dropped onto the world.
@@ -221,10 +268,12 @@ public class EquipmentSystem extends BaseComponentSystem {
 
             InventoryComponent equipmentInv = eq.equipmentInventory.getComponent(InventoryComponent.class);
 
-            // Get the position and direction of the player, and calculate what the new position of the item should be.
+            // Get the position and direction of the dying character (not of the local player, which doesn't exist on a
+            // dedicated server), and calculate what the new position of the item should be.
             //TODO: how can we re-use code from InventoryUtils#dropItems here?
-            Vector3f direction = localPlayer.getViewDirection(new Vector3f());
-            Vector3f newPosition = localPlayer.getViewPosition(new Vector3f())
+            LocationComponent location = player.getComponent(LocationComponent.class);
+            Vector3f direction = location == null ? new Vector3f() : location.getWorldDirection(new Vector3f());
+            Vector3f newPosition = location == null ? new Vector3f() : location.getWorldPosition(new Vector3f())
                     .add(direction.mul(1.5f, 1.5f, 1.5f), new Vector3f());
 
             // Drop every item stored in the equipment inventory entity.
@@ -254,21 +303,37 @@ public class EquipmentSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void setItemTooltip(GetItemTooltip event, EntityRef item, EquipmentItemComponent eqItem) {
-        DisplayNameComponent d = item.getComponent(DisplayNameComponent.class);
-        event.getTooltipLines().add(new TooltipLine(d.description));
-        event.getTooltipLines().add(new TooltipLine(""));
-
-        if (eqItem.quality == 5) {
-            event.getTooltipLines().add(new TooltipLine("Level " + eqItem.level + " Rare " + eqItem.type));
-        } else {
-            event.getTooltipLines().add(new TooltipLine("Level " + eqItem.level + " Common " + eqItem.type));
+        List<TooltipLine> lines = tooltipCache.get(item, eqItem, archetypes.get(item));
+        List<TooltipLine> tooltipLines = event.getTooltipLines();
+        for (int i = 0; i < lines.size(); i++) {
+            tooltipLines.add(lines.get(i));
         }
+    }
 
-        event.getTooltipLines().add(new TooltipLine("Equippable on " + eqItem.location + "."));
-        event.getTooltipLines().add(new TooltipLine("Physical Attack: " + eqItem.attack));
-        event.getTooltipLines().add(new TooltipLine("Physical Defense: " + eqItem.defense));
-        event.getTooltipLines().add(new TooltipLine("Speed: " + eqItem.speed));
-        event.getTooltipLines().add(new TooltipLine("Weight: " + eqItem.weight));
+    /**
+     * Rebuilds the tooltip of an item the next time it is requested, after one of the components shown in it changed.
+     *
+     * @param event the event corresponding to the change of the item's components
+     * @param item the item whose components have changed
+     */
+    @ReceiveEvent(components = {EquipmentItemComponent.class, DisplayNameComponent.class})
+    public void onTooltipComponentsChanged(OnChangedComponent event, EntityRef item) {
+        tooltipCache.invalidate(item);
+    }
+
+    /**
+     * Forgets the cached tooltip of an item that is going away, and takes its attack and defense out of the combat
+     * totals of its owner in case it is destroyed while still equipped.
+     *
+     * @param event the event corresponding to the deactivation of the item
+     * @param item the item being deactivated
+     * @param eqItem the equipment item component associated with the item
+     */
+    @ReceiveEvent
+    public void onEquipmentItemDeactivated(BeforeDeactivateComponent event, EntityRef item,
+                                           EquipmentItemComponent eqItem) {
+        tooltipCache.invalidate(item);
+        combatTotals.remove(item);
     }
 
     /**
@@ -284,15 +349,12 @@ public class EquipmentSystem extends BaseComponentSystem {
             return;
         }
 
-        for (EquipmentSlot eSlot : eqComponent.equipmentSlots) {
-            if (eSlot.type.equalsIgnoreCase(eEvent.getEquipmentSlot().type)) {
-                if (eSlot.itemRef != EntityRef.NULL) {
-                    return;
-                } else {
-                    eSlot.itemRef = eEvent.getItem();
-                    return;
-                }
+        EquipmentSlot eSlot = eqComponent.getSlotOfType(eEvent.getEquipmentSlot().type);
+        if (eSlot != null) {
+            if (eSlot.itemRef == EntityRef.NULL) {
+                eSlot.itemRef = eEvent.getItem();
             }
+            return;
         }
 
         eEvent.getCharacter().saveComponent(eqComponent);
@@ -301,78 +363,66 @@ public class EquipmentSystem extends BaseComponentSystem {
     private boolean equipItem(EntityRef character, EntityRef item, int slotNumber, EntityRef eqInvEntRef) {
         EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
 
-        // Search through all the equipment slots for a slot that has the same type as the item intended to be equipped.
-        for (EquipmentSlot eSlot : eq.equipmentSlots) {
-            // If this slot has the same type as the item.
-            if (eSlot.type.equalsIgnoreCase(item.getComponent(EquipmentItemComponent.class).location)) {
-                // Check to see if this contains an empty slot first.
-                boolean isSlotEmpty = false; // Flag indicating if there's an empty slot.
-                int atIndex = 0;             // The index of the empty slot.
-                for (int i = 0; i < eSlot.itemRefs.size() && !isSlotEmpty; i++) {
-                    if (eSlot.itemRefs.get(i) == EntityRef.NULL) {
-                        isSlotEmpty = true;
-                        atIndex = i;
-                    }
+        // Look up the slot that has the same type as the item intended to be equipped.
+        EquipmentSlot eSlot = eq.getSlotOfType(item.getComponent(EquipmentItemComponent.class).location);
+        if (eSlot != null) {
+            // Check to see if this contains an empty slot first.
+            boolean isSlotEmpty = false; // Flag indicating if there's an empty slot.
+            int atIndex = 0;             // The index of the empty slot.
+            for (int i = 0; i < eSlot.itemRefs.size() && !isSlotEmpty; i++) {
+                if (eSlot.itemRefs.get(i) == EntityRef.NULL) {
+                    isSlotEmpty = true;
+                    atIndex = i;
                 }
+            }
 
-                // If all of the slots of this type are already filled, swap the one in the first slot with the new
-                // item.
-                if (!isSlotEmpty) {
-                    InventoryManager inventoryManager = CoreRegistry.get(InventoryManager.class);
-
-                    // Find an empty spot in the character's inventory to move the swapped item out to.
-                    int index = 0;         // Index of the empty spot in the player's inventory.
-                    boolean found = false; // Flag indicating whether an empty spot was found.
-                    InventoryComponent charInv = character.getComponent(InventoryComponent.class);
-                    for (int i = 0; i < charInv.itemSlots.size() && !found; i++) {
-                        if (charInv.itemSlots.get(i) == EntityRef.NULL) {
-                            index = i;
-                            found = true;
-                        }
-                    }
+            // If all of the slots of this type are already filled, swap the one in the first slot with the new
+            // item.
+            if (!isSlotEmpty) {
+                InventoryManager inventoryManager = CoreRegistry.get(InventoryManager.class);
 
-                    // If an empty spot was found in the character's inventory.
-                    if (found) {
-                        // Move the equipped item in the first available slot of this equipment slot to the
-                        // character's inventory.
-                        inventoryManager.moveItem(eqInvEntRef, eqInvEntRef,
-                                InventoryUtils.getSlotWithItem(eqInvEntRef, eSlot.itemRefs.get(0)),
-                                character, index, 1);
-
-                        // Unequip the moved item.
-                        unequipItem(character, eSlot.itemRefs.get(0));
-
-                        // Add item's stat modifier (if any) to the character.
-                        addModifier(character, item);
-
-                        // Equip the desired item in the now free slot.
-                        eSlot.itemRefs.set(atIndex, item);
-                        character.saveComponent(eq);
-
-                        // Send an EquipItemEvent, play a sound, and return true, indicating that the equip action
-                        // was successful.
-                        character.send(new EquipItemEvent(character, item, eSlot));
-                        CoreRegistry.get(AudioManager.class).playSound(Assets.getSound("Equipment:metal-clash").get()
-                                , 1.0f);
-                        return true;
-                    }
-                } else { // If there's an empty slot available in this equipment slot.
-                    eSlot.itemRef = item;
+                // Find an empty spot in the character's inventory to move the swapped item out to.
+                int index = slotIndex.findEmptySlot(character);
 
-                    // Equip the desired item in the free slot.
-                    eSlot.itemRefs.set(atIndex, item);
-                    character.saveComponent(eq);
+                // If an empty spot was found in the character's inventory.
+                if (index >= 0) {
+                    // Move the equipped item in the first available slot of this equipment slot to the
+                    // character's inventory.
+                    inventoryManager.moveItem(eqInvEntRef, eqInvEntRef,
+                            slotIndex.getSlotWithItem(eqInvEntRef, eSlot.itemRefs.get(0)),
+                            character, index, 1);
+
+                    // Unequip the moved item.
+                    unequipItem(character, eSlot.itemRefs.get(0));
 
                     // Add item's stat modifier (if any) to the character.
                     addModifier(character, item);
 
-                    // Send an EquipItemEvent, play a sound, and return true, indicating that the equip action was
-                    // successful.
+                    // Equip the desired item in the now free slot.
+                    eSlot.itemRefs.set(atIndex, item);
+                    character.saveComponent(eq);
+
+                    // Send an EquipItemEvent, play a sound, and return true, indicating that the equip action
+                    // was successful.
                     character.send(new EquipItemEvent(character, item, eSlot));
-                    CoreRegistry.get(AudioManager.class).playSound(Assets.getSound("Equipment:metal-clash").get(),
-                            1.0f);
+                    audioManager.playSound(Assets.getSound("Equipment:metal-clash").get(), 1.0f);
                     return true;
                 }
+            } else { // If there's an empty slot available in this equipment slot.
+                eSlot.itemRef = item;
+
+                // Equip the desired item in the free slot.
+                eSlot.itemRefs.set(atIndex, item);
+                character.saveComponent(eq);
+
+                // Add item's stat modifier (if any) to the character.
+                addModifier(character, item);
+
+                // Send an EquipItemEvent, play a sound, and return true, indicating that the equip action was
+                // successful.
+                character.send(new EquipItemEvent(character, item, eSlot));
+                audioManager.playSound(Assets.getSound("Equipment:metal-clash").get(), 1.0f);
+                return true;
             }
         }
 
@@ -390,27 +440,24 @@ public class EquipmentSystem extends BaseComponentSystem {
             return true;
         }
 
-        // Iterate through all of the equipment slots.
-        for (EquipmentSlot eSlot : eq.equipmentSlots) {
-            // If this slot's accepted type matches the item's location.
-            if (eSlot.type.equalsIgnoreCase(item.getComponent(EquipmentItemComponent.class).location)) {
-                // Look through all of the item ref slots of this equipment slot.
-                for (int i = 0; i < eSlot.itemRefs.size(); i++) {
-                    // If the item is found in one of the item ref slots, remove the matching item from the ref slot.
-                    if (eSlot.itemRefs.get(i).equals(item)) {
-                        // Remove the reference for this item.
-                        eSlot.itemRefs.set(i, EntityRef.NULL);
-                        character.saveComponent(eq);
-
-                        removeModifier(character, item);
-
-                        // Send an UnequipItemEvent, play a sound, and return true, indicating that the unequip
-                        // action was successful.
-                        character.send(new UnequipItemEvent(character, item, eSlot));
-                        CoreRegistry.get(AudioManager.class).playSound(Assets.getSound("Equipment:metal-clash-reverse"
-                        ).get(), 1.0f);
-                        return true;
-                    }
+        // Look up the slot whose accepted type matches the item's location.
+        EquipmentSlot eSlot = eq.getSlotOfType(item.getComponent(EquipmentItemComponent.class).location);
+        if (eSlot != null) {
+            // Look through all of the item ref slots of this equipment slot.
+            for (int i = 0; i < eSlot.itemRefs.size(); i++) {
+                // If the item is found in one of the item ref slots, remove the matching item from the ref slot.
+                if (eSlot.itemRefs.get(i).equals(item)) {
+                    // Remove the reference for this item.
+                    eSlot.itemRefs.set(i, EntityRef.NULL);
+                    character.saveComponent(eq);
+
+                    removeModifier(character, item);
+
+                    // Send an UnequipItemEvent, play a sound, and return true, indicating that the unequip
+                    // action was successful.
+                    character.send(new UnequipItemEvent(character, item, eSlot));
+                    audioManager.playSound(Assets.getSound("Equipment:metal-clash-reverse").get(), 1.0f);
+                    return true;
                 }
             }
         }
@@ -419,6 +466,309 @@ public class EquipmentSystem extends BaseComponentSystem {
         return false;
     }
 
+    /**
+     * Equips several items from a character's inventory as a single change.
+     *
+     * @param character the character who is to equip the items
+     * @param items     the items in the character's inventory to equip
+     * @return true if all items were equipped, false if none were
+     * @see #changeLoadout(EntityRef, List, List)
+     */
+    public boolean equipAll(EntityRef character, List<EntityRef> items) {
+        return changeLoadout(character, Collections.emptyList(), items);
+    }
+
+    /**
+     * Unequips several items of a character as a single change, moving them into the character's inventory.
+     *
+     * @param character the character who is to unequip the items
+     * @param items     the equipped items to unequip
+     * @return true if all items were unequipped, false if none were
+     * @see #changeLoadout(EntityRef, List, List)
+     */
+    public boolean unequipAll(EntityRef character, List<EntityRef> items) {
+        return changeLoadout(character, items, Collections.emptyList());
+    }
+
+    /**
+     * Unequips and equips several items of a character as a single change. The unequipped items are moved from the
+     * equipment inventory into the character's inventory, and the equipped items the other way around. Either every
+     * change is made, or none are.
+     *
+     * Unlike equipping items one at a time, every component is only saved once, a single {@link LoadoutChangedEvent}
+     * is sent instead of an event per item, and at most one sound is played.
+     *
+     * @param character the character whose loadout is to be changed
+     * @param toUnequip the equipped items to unequip
+     * @param toEquip   the items in the character's inventory to equip
+     * @return true if the loadout was changed, false if nothing was changed because some item couldn't be equipped or
+     *         unequipped
+     */
+    public boolean changeLoadout(EntityRef character, List<EntityRef> toUnequip, List<EntityRef> toEquip) {
+        long start = System.nanoTime();
+        try {
+            return applyLoadout(character, toUnequip, toEquip);
+        } finally {
+            metrics.recordSince(EquipmentMetric.LOADOUT_CHANGE, start);
+        }
+    }
+
+    private boolean applyLoadout(EntityRef character, List<EntityRef> toUnequip, List<EntityRef> toEquip) {
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        if (eq == null || !character.hasComponent(InventoryComponent.class)) {
+            return false;
+        }
+        if (toUnequip.isEmpty() && toEquip.isEmpty()) {
+            return true;
+        }
+        if (eq.equipmentInventory == EntityRef.NULL) {
+            // Nothing is equipped yet, so there's only something to do if items are to be equipped.
+            if (!toUnequip.isEmpty()) {
+                return false;
+            }
+            getOrCreateEquipmentInventory(character);
+            eq = character.getComponent(EquipmentComponent.class);
+        }
+
+        // Work out where every item goes before changing anything, using copies of the contents of each slot.
+        Map<EquipmentSlot, List<EntityRef>> plannedSlots = new LinkedHashMap<>();
+        for (EntityRef item : toUnequip) {
+            EquipmentSlot eSlot = getSlotOfItem(eq, item);
+            if (eSlot == null || slotIndex.getSlotWithItem(eq.equipmentInventory, item) < 0) {
+                return false;
+            }
+
+            List<EntityRef> itemRefs = plannedSlots.computeIfAbsent(eSlot, slot -> new ArrayList<>(slot.itemRefs));
+            int index = itemRefs.indexOf(item);
+            if (index < 0) {
+                return false;
+            }
+            itemRefs.set(index, EntityRef.NULL);
+        }
+        for (EntityRef item : toEquip) {
+            EquipmentSlot eSlot = getSlotOfItem(eq, item);
+            if (eSlot == null || slotIndex.getSlotWithItem(character, item) < 0) {
+                return false;
+            }
+
+            List<EntityRef> itemRefs = plannedSlots.computeIfAbsent(eSlot, slot -> new ArrayList<>(slot.itemRefs));
+            int index = itemRefs.indexOf(EntityRef.NULL);
+            if (index < 0 || itemRefs.contains(item)) {
+                return false;
+            }
+            itemRefs.set(index, item);
+        }
+
+        if (!moveLoadoutItems(character, eq.equipmentInventory, toUnequip, toEquip)) {
+            return false;
+        }
+
+        // Commit the new slot contents, and save the equipment and stat modifiers once.
+        for (Map.Entry<EquipmentSlot, List<EntityRef>> plannedSlot : plannedSlots.entrySet()) {
+            EquipmentSlot eSlot = plannedSlot.getKey();
+            for (int i = 0; i < eSlot.itemRefs.size(); i++) {
+                eSlot.itemRefs.set(i, plannedSlot.getValue().get(i));
+            }
+        }
+        for (EntityRef item : toEquip) {
+            getSlotOfItem(eq, item).itemRef = item;
+        }
+        character.saveComponent(eq);
+        changeModifiers(character, toUnequip, toEquip);
+
+        character.send(new LoadoutChangedEvent(character, new ArrayList<>(toEquip), new ArrayList<>(toUnequip),
+                new ArrayList<>(plannedSlots.keySet())));
+        audioManager.playSound(Assets.getSound(toEquip.isEmpty() ? "Equipment:metal-clash-reverse"
+                : "Equipment:metal-clash").get(), 1.0f);
+        return true;
+    }
+
+    /**
+     * Replaces the equipment inventory of a character with another one, equipping everything stored in the new
+     * inventory and unequipping everything stored in the old one. No items are moved between inventories, so the cost
+     * doesn't depend on how many inventory slots there are.
+     *
+     * Like {@link #changeLoadout(EntityRef, List, List)}, every component is only saved once, a single
+     * {@link LoadoutChangedEvent} is sent, and at most one sound is played.
+     *
+     * @param character the character whose equipment inventory is to be replaced
+     * @param inventory the equipment inventory whose items are to be equipped
+     * @return the previous equipment inventory, or EntityRef.NULL if nothing was changed because some item in the
+     *         new inventory can't be equipped
+     */
+    public EntityRef swapEquipmentInventory(EntityRef character, EntityRef inventory) {
+        long start = System.nanoTime();
+        try {
+            return applyEquipmentInventory(character, inventory);
+        } finally {
+            metrics.recordSince(EquipmentMetric.LOADOUT_CHANGE, start);
+        }
+    }
+
+    private EntityRef applyEquipmentInventory(EntityRef character, EntityRef inventory) {
+        EquipmentComponent eq = character.getComponent(EquipmentComponent.class);
+        InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+        if (eq == null || inv == null) {
+            return EntityRef.NULL;
+        }
+
+        // Work out which slot every stored item goes into, starting from empty slots.
+        Map<EquipmentSlot, List<EntityRef>> plannedSlots = new LinkedHashMap<>();
+        for (EquipmentSlot eSlot : eq.equipmentSlots) {
+            plannedSlots.put(eSlot, new ArrayList<>(Collections.nCopies(eSlot.itemRefs.size(), EntityRef.NULL)));
+        }
+        List<EntityRef> toEquip = new ArrayList<>();
+        for (EntityRef item : inv.itemSlots) {
+            if (item != EntityRef.NULL) {
+                EquipmentSlot eSlot = getSlotOfItem(eq, item);
+                List<EntityRef> itemRefs = eSlot == null ? null : plannedSlots.get(eSlot);
+                int index = itemRefs == null ? -1 : itemRefs.indexOf(EntityRef.NULL);
+                if (index < 0) {
+                    return EntityRef.NULL;
+                }
+                itemRefs.set(index, item);
+                toEquip.add(item);
+            }
+        }
+
+        // Make sure the new inventory has as many slots as the equipment.
+        if (inv.itemSlots.size() < eq.numberOfSlots) {
+            while (inv.itemSlots.size() < eq.numberOfSlots) {
+                inv.itemSlots.add(EntityRef.NULL);
+            }
+            inventory.saveComponent(inv);
+        }
+
+        List<EntityRef> toUnequip = new ArrayList<>();
+        for (Map.Entry<EquipmentSlot, List<EntityRef>> plannedSlot : plannedSlots.entrySet()) {
+            EquipmentSlot eSlot = plannedSlot.getKey();
+            for (int i = 0; i < eSlot.itemRefs.size(); i++) {
+                if (eSlot.itemRefs.get(i) != EntityRef.NULL) {
+                    toUnequip.add(eSlot.itemRefs.get(i));
+                }
+                eSlot.itemRefs.set(i, plannedSlot.getValue().get(i));
+            }
+        }
+
+        EntityRef previousInventory = eq.equipmentInventory;
+        eq.equipmentInventory = inventory;
+        character.saveComponent(eq);
+        changeModifiers(character, toUnequip, toEquip);
+
+        character.send(new LoadoutChangedEvent(character, toEquip, toUnequip, new ArrayList<>(eq.equipmentSlots)));
+        if (!toEquip.isEmpty() || !toUnequip.isEmpty()) {
+            audioManager.playSound(Assets.getSound(toEquip.isEmpty() ? "Equipment:metal-clash-reverse"
+                    : "Equipment:metal-clash").get(), 1.0f);
+        }
+        return previousInventory;
+    }
+
+    /**
+     * Moves the items of a loadout change between the character's inventory and its equipment inventory. Where
+     * possible, an unequipped item swaps places with an equipped one, so no free space is needed for it.
+     *
+     * @param character the character whose loadout is being changed
+     * @param eqInv     the character's equipment inventory
+     * @param toUnequip the items to move into the character's inventory
+     * @param toEquip   the items to move into the equipment inventory
+     * @return true if all items were moved, false if nothing was moved
+     */
+    private boolean moveLoadoutItems(EntityRef character, EntityRef eqInv, List<EntityRef> toUnequip,
+                                     List<EntityRef> toEquip) {
+        InventoryManager inventoryManager = CoreRegistry.get(InventoryManager.class);
+        int swaps = Math.min(toUnequip.size(), toEquip.size());
+
+        // Make sure there's room for the items that can't be swapped.
+        if (slotIndex.countEmptySlots(character) < toUnequip.size() - swaps
+                || slotIndex.countEmptySlots(eqInv) < toEquip.size() - swaps) {
+            return false;
+        }
+
+        // Every move made so far, so that they can be undone if a later one is refused.
+        Deque<Runnable> undo = new ArrayDeque<>();
+        applyingLoadout = true;
+        try {
+            for (int i = 0; i < toUnequip.size() || i < toEquip.size(); i++) {
+                boolean moved;
+                if (i < swaps) {
+                    int eqSlot = slotIndex.getSlotWithItem(eqInv, toUnequip.get(i));
+                    int charSlot = slotIndex.getSlotWithItem(character, toEquip.get(i));
+                    moved = inventoryManager.switchItem(eqInv, eqInv, eqSlot, character, charSlot);
+                    undo.push(() -> inventoryManager.switchItem(eqInv, eqInv, eqSlot, character, charSlot));
+                } else if (i < toUnequip.size()) {
+                    int eqSlot = slotIndex.getSlotWithItem(eqInv, toUnequip.get(i));
+                    int charSlot = slotIndex.findEmptySlot(character);
+                    moved = inventoryManager.moveItem(eqInv, eqInv, eqSlot, character, charSlot, 1);
+                    undo.push(() -> inventoryManager.moveItem(character, eqInv, charSlot, eqInv, eqSlot, 1));
+                } else {
+                    int charSlot = slotIndex.getSlotWithItem(character, toEquip.get(i));
+                    int eqSlot = slotIndex.findEmptySlot(eqInv);
+                    moved = inventoryManager.moveItem(character, eqInv, charSlot, eqInv, eqSlot, 1);
+                    undo.push(() -> inventoryManager.moveItem(eqInv, eqInv, eqSlot, character, charSlot, 1));
+                }
+
+                if (!moved) {
+                    // The refused move didn't happen, so it mustn't be undone either.
+                    undo.pop();
+                    while (!undo.isEmpty()) {
+                        undo.pop().run();
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            applyingLoadout = false;
+        }
+    }
+
+    /**
+     * Removes the stat modifiers of the unequipped items and adds those of the equipped items, saving the character's
+     * list of stat modifiers once.
+     *
+     * @param character the character whose loadout has changed
+     * @param removed   the unequipped items
+     * @param added     the equipped items
+     */
+    private void changeModifiers(EntityRef character, List<EntityRef> removed, List<EntityRef> added) {
+        PhysicalStatsModifiersListComponent pStatsModList =
+                character.getComponent(PhysicalStatsModifiersListComponent.class);
+        boolean isNew = pStatsModList == null;
+        boolean changed = false;
+
+        if (!isNew) {
+            for (EntityRef item : removed) {
+                PhysicalStatsModifierComponent eqStatsMod = item.getComponent(PhysicalStatsModifierComponent.class);
+                if (eqStatsMod != null) {
+                    changed |= pStatsModList.modifiers.remove(eqStatsMod.id) != null;
+                }
+            }
+        }
+
+        for (EntityRef item : added) {
+            PhysicalStatsModifierComponent eqStatsMod = item.getComponent(PhysicalStatsModifierComponent.class);
+            if (eqStatsMod != null) {
+                if (pStatsModList == null) {
+                    pStatsModList = new PhysicalStatsModifiersListComponent();
+                }
+                eqStatsMod.id = EquipmentItemIds.of(item);
+                pStatsModList.modifiers.put(eqStatsMod.id, eqStatsMod);
+                changed = true;
+            }
+        }
+
+        if (isNew && pStatsModList != null) {
+            character.addComponent(pStatsModList);
+        } else if (changed) {
+            character.saveComponent(pStatsModList);
+        }
+    }
+
+    private EquipmentSlot getSlotOfItem(EquipmentComponent eq, EntityRef item) {
+        EquipmentItemComponent eqItem = item.getComponent(EquipmentItemComponent.class);
+        return eqItem == null ? null : eq.getSlotOfType(eqItem.location);
+    }
+
     /**
      * Adds physical stat modifiers of an item (if any) to a character.
      *
@@ -439,7 +789,7 @@ public class EquipmentSystem extends BaseComponentSystem {
             PhysicalStatsModifierComponent eqStatsMod = item.getComponent(PhysicalStatsModifierComponent.class);
 
             if (eqStatsMod != null) {
-                eqStatsMod.id = item.toFullDescription();
+                eqStatsMod.id = EquipmentItemIds.of(item);
                 pStatsMod.modifiers.put(eqStatsMod.id, eqStatsMod);
                 //pStatsMod.modifiers.put("" + eqStatsMod.hashCode(), eqStatsMod);
             }
@@ -471,83 +821,167 @@ public class EquipmentSystem extends BaseComponentSystem {
     }
 
     /**
-     * Defines what to do when a stat of an entity is changed.
+     * Adds the stats of a newly equipped item to the cached combat totals of the entity.
      *
-     * @param event the event corresponding to the changing of the stat
-     * @param entity the entity who's stat has been changed
+     * @param event the event corresponding to the equipment of the item
+     * @param entity the entity who has equipped the item
      * @param eq the equipment component associated with the entity
      */
     @ReceiveEvent
-    public void onStatChanged(OnPhysicalStatChangedEvent event, EntityRef entity, EquipmentComponent eq) {
-        CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
-
-        if (screen != null) {
-            screen.updateStats();
-        }
+    public void updateCombatTotals(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        combatTotals.add(entity, event.getItem());
     }
 
     /**
-     * Defines what to do when a physical stat modifier is added to an entity.
+     * Removes the stats of an unequipped item from the cached combat totals of the entity.
      *
-     * @param event the event corresponding to the adding of the physical stat modifier
-     * @param entity the entity to whom the stat modifier has been added
+     * @param event the event corresponding to the unequipment of the item
+     * @param entity the entity who has unequipped the item
      * @param eq the equipment component associated with the entity
      */
     @ReceiveEvent
-    public void onStatChanged(OnPhysicalStatsModifierAddedEvent event, EntityRef entity, EquipmentComponent eq) {
-        CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
+    public void updateCombatTotals(UnequipItemEvent event, EntityRef entity, EquipmentComponent eq) {
+        combatTotals.remove(event.getItem());
+    }
 
-        if (screen != null) {
-            screen.updateStats();
+    /**
+     * Updates the cached combat totals of the entity with all items equipped and unequipped in one loadout change.
+     *
+     * @param event the event corresponding to the change of the loadout
+     * @param entity the entity whose loadout has changed
+     * @param eq the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void updateCombatTotals(LoadoutChangedEvent event, EntityRef entity, EquipmentComponent eq) {
+        for (EntityRef item : event.getUnequippedItems()) {
+            combatTotals.remove(item);
+        }
+        for (EntityRef item : event.getEquippedItems()) {
+            combatTotals.add(entity, item);
         }
     }
 
     /**
-     * Defines what to do when a physical stat modifier is removed from an entity.
+     * Keeps the cached combat totals correct when the stats of an equipped item change at runtime.
      *
-     * @param event the event corresponding to the removal of the physical stat modifier
-     * @param entity the entity from whom the stat modifier has been removed
-     * @param eq the equipment component associated with the entity
+     * @param event the event corresponding to the change of the item's stats
+     * @param item the item whose stats have changed
+     */
+    @ReceiveEvent(components = {EquipmentItemComponent.class})
+    public void onItemStatsChanged(OnChangedComponent event, EntityRef item) {
+        combatTotals.refresh(item);
+    }
+
+    /**
+     * Keeps the slot index of an inventory up to date when one of its slots changes.
+     *
+     * @param event the event corresponding to the change of the slot
+     * @param inventory the entity owning the inventory
+     * @param inv the inventory component associated with the entity
      */
     @ReceiveEvent
-    public void onStatChanged(OnPhysicalStatsModifierRemovedEvent event, EntityRef entity, EquipmentComponent eq) {
-        CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
+    public void onInventorySlotChanged(InventorySlotChangedEvent event, EntityRef inventory, InventoryComponent inv) {
+        slotIndex.onSlotChanged(inventory, event.getSlot(), event.getNewItem());
+    }
 
-        if (screen != null) {
-            screen.updateStats();
-        }
+    /**
+     * Drops the slot index of an inventory that is going away.
+     *
+     * @param event the event corresponding to the deactivation of the inventory component
+     * @param inventory the entity owning the inventory
+     * @param inv the inventory component associated with the entity
+     */
+    @ReceiveEvent
+    public void onInventoryDeactivated(BeforeDeactivateComponent event, EntityRef inventory, InventoryComponent inv) {
+        slotIndex.evict(inventory);
     }
 
     /**
-     * Defines what to do when an item is equipped by an entity.
+     * Builds the slot type index of an equipment component as soon as it is loaded.
      *
-     * @param event the event corresponding to the equipment of the item
-     * @param entity the entity who has equipped the item
+     * @param event the event corresponding to the activation of the equipment component
+     * @param entity the entity being activated
+     * @param eq the equipment component associated with the entity
+     */
+    @ReceiveEvent
+    public void onEquipmentActivated(OnActivatedComponent event, EntityRef entity, EquipmentComponent eq) {
+        eq.reindexSlots();
+    }
+
+    /**
+     * Re-keys the stat modifiers of equipped items that were saved by an older version of this module, which used
+     * the item's full JSON description as the modifier id.
+     *
+     * @param event the event corresponding to the activation of the equipment component
+     * @param entity the entity being activated
      * @param eq the equipment component associated with the entity
+     * @param pStatsModList the list of physical stats modifiers applied to the entity
      */
+    @NetFilterEvent(netFilter = RegisterMode.AUTHORITY)
     @ReceiveEvent
-    public void onEquipChanged(EquipItemEvent event, EntityRef entity, EquipmentComponent eq) {
-        CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
+    public void migrateModifierIds(OnActivatedComponent event, EntityRef entity, EquipmentComponent eq,
+                                   PhysicalStatsModifiersListComponent pStatsModList) {
+        boolean migrated = false;
+
+        for (EquipmentSlot eSlot : eq.equipmentSlots) {
+            for (EntityRef item : eSlot.itemRefs) {
+                PhysicalStatsModifierComponent eqStatsMod = item.getComponent(PhysicalStatsModifierComponent.class);
+
+                if (eqStatsMod != null && EquipmentItemIds.isLegacy(eqStatsMod.id)) {
+                    PhysicalStatsModifierComponent saved = pStatsModList.modifiers.remove(eqStatsMod.id);
+                    eqStatsMod.id = EquipmentItemIds.of(item);
+                    item.saveComponent(eqStatsMod);
+
+                    if (saved != null) {
+                        saved.id = eqStatsMod.id;
+                        pStatsModList.modifiers.put(saved.id, saved);
+                        migrated = true;
+                    }
+                }
+            }
+        }
 
-        if (screen != null) {
-            screen.updateStats();
+        if (migrated) {
+            entity.saveComponent(pStatsModList);
         }
     }
 
     /**
-     * Defines what to do when an item is unequipped by an entity.
+     * Drops the cached combat totals of an entity that no longer exists or can no longer equip items.
      *
-     * @param event the event corresponding to the unequipment of the item
-     * @param entity the entity who has unequipped the item
+     * @param event the event corresponding to the deactivation of the equipment component
+     * @param entity the entity being deactivated
      * @param eq the equipment component associated with the entity
      */
     @ReceiveEvent
-    public void onEquipChanged(UnequipItemEvent event, EntityRef entity, EquipmentComponent eq) {
-        CharacterScreenWindow screen = (CharacterScreenWindow) nuiManager.getScreen("Equipment:BackupScreen");
+    public void onEquipmentDeactivated(BeforeDeactivateComponent event, EntityRef entity, EquipmentComponent eq) {
+        combatTotals.evict(entity);
+    }
 
-        if (screen != null) {
-            screen.updateStats();
+    /**
+     * Returns the index of a damage type prefab, resolving its name only the first time the prefab is seen. Damage
+     * types that no equipment has a defense against aren't registered, and are looked up again once more damage
+     * types have been registered.
+     *
+     * @param damageType the damage type prefab
+     * @return the damage type index, or -1 if there is no damage type or no defense against it
+     */
+    private int getDamageTypeIndex(Prefab damageType) {
+        if (damageType == null) {
+            return -1;
         }
+
+        if (knownDamageTypes != EquipmentDamageTypes.size()) {
+            damageTypeIndices.values().removeIf(cached -> cached < 0);
+            knownDamageTypes = EquipmentDamageTypes.size();
+        }
+
+        Integer index = damageTypeIndices.get(damageType);
+        if (index == null) {
+            index = EquipmentDamageTypes.find(damageType.getUrn().getResourceName().toString());
+            damageTypeIndices.put(damageType, index);
+        }
+        return index;
     }
 
     /**
@@ -558,21 +992,13 @@ public class EquipmentSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void doingDamage(BeforeDamagedEvent event, EntityRef damageTarget) {
-        if (event.getInstigator().hasComponent(EquipmentComponent.class)) {
+        long start = System.nanoTime();
+        EquipmentCombatTotals.Totals totals = combatTotals.get(event.getInstigator());
 
-            EquipmentComponent eq = event.getInstigator().getComponent(EquipmentComponent.class);
-            int phyAtkTotal = 0;
-
-            for (int i = 0; i < eq.equipmentSlots.size(); i++) {
-                for (int j = 0; j < eq.equipmentSlots.get(i).itemRefs.size(); j++) {
-                    if (eq.equipmentSlots.get(i).itemRefs.get(j) != EntityRef.NULL) {
-                        phyAtkTotal += eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(EquipmentItemComponent.class).attack;
-                    }
-                }
-            }
-
-            event.add(phyAtkTotal);
+        if (totals != null) {
+            event.add(totals.getAttack());
         }
+        metrics.recordSince(EquipmentMetric.DAMAGE_HOOK, start);
     }
 
     /**
@@ -583,24 +1009,14 @@ public class EquipmentSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void takingDamage(BeforeDamagedEvent event, EntityRef damageTarget) {
-        if (damageTarget.hasComponent(EquipmentComponent.class)) {
-
-            // TODO: Ascertain why this call sometimes fails when the damage is caused by falling.
-            boolean result = damageTarget.hasComponent(EquipmentComponent.class);
-            EquipmentComponent eq = damageTarget.getComponent(EquipmentComponent.class);
-
-            int phyDefTotal = 0;
-
-            // Physical defense ONLY protects against physical damage. Not direct/pierce or magical damage.
-            if (event.getDamageType().getUrn().getResourceName().toString().equalsIgnoreCase("physicalDamage")) {
-                for (int i = 0; i < eq.equipmentSlots.size(); i++) {
-                    if (eq.equipmentSlots.get(i).itemRef != EntityRef.NULL) {
-                        phyDefTotal += eq.equipmentSlots.get(i).itemRef.getComponent(EquipmentItemComponent.class).defense;
-                    }
-                }
-            }
+        long start = System.nanoTime();
+        EquipmentCombatTotals.Totals totals = combatTotals.get(damageTarget);
 
-            event.add(-phyDefTotal);
+        if (totals != null) {
+            // Each piece of equipment only protects against the damage types it has defense against. The 'defense'
+            // stat ONLY protects against physical damage. Not direct/pierce or magical damage.
+            event.add(-totals.getDefense(getDamageTypeIndex(event.getDamageType())));
         }
+        metrics.recordSince(EquipmentMetric.DAMAGE_HOOK, start);
     }
 }
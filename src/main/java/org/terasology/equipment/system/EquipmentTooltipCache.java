@@ -0,0 +1,144 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.equipment.component.EquipmentItemComponent;
+import org.terasology.nui.widgets.TooltipLine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches the tooltip lines of equipment items, as tooltips are requested every frame while an item is hovered.
+ *
+ * The lines are shared by all items created from the same prefab whose displayed stats are the same. Items that
+ * still have the stats of their prefab's archetype share the archetype's lines without building a lookup key. Each
+ * item remembers which lines it uses until one of its displayed components changes.
+ */
+public class EquipmentTooltipCache {
+    /** The tooltip lines of every combination of prefab and displayed stats seen so far. */
+    private final Map<TooltipKey, List<TooltipLine>> linesByKey = new HashMap<>();
+
+    /** The tooltip lines of items that still have the stats and description of their prefab. */
+    private final Map<EquipmentArchetype, List<TooltipLine>> linesByArchetype = new HashMap<>();
+
+    /** The tooltip lines each item currently uses. */
+    private final Map<EntityRef, List<TooltipLine>> linesByItem = new HashMap<>();
+
+    /**
+     * Returns the tooltip lines of an equipment item, only building them if no item with the same prefab and stats
+     * has been seen before.
+     *
+     * @param item      the item whose tooltip is requested
+     * @param eqItem    the equipment item component of the item
+     * @param archetype the archetype of the item's prefab, or null if there is none
+     * @return the tooltip lines of the item, which must not be modified
+     */
+    public List<TooltipLine> get(EntityRef item, EquipmentItemComponent eqItem, EquipmentArchetype archetype) {
+        List<TooltipLine> lines = linesByItem.get(item);
+        if (lines == null) {
+            DisplayNameComponent d = item.getComponent(DisplayNameComponent.class);
+            String description = d == null ? "" : d.description;
+            if (archetype != null && archetype.matches(eqItem) && isPrefabDescription(archetype, description)) {
+                lines = linesByArchetype.computeIfAbsent(archetype,
+                        a -> new TooltipKey(a.getPrefab(), description, eqItem).buildLines());
+            } else {
+                TooltipKey key = new TooltipKey(item.getParentPrefab(), description, eqItem);
+                lines = linesByKey.computeIfAbsent(key, TooltipKey::buildLines);
+            }
+            linesByItem.put(item, lines);
+        }
+        return lines;
+    }
+
+    /**
+     * Forgets which tooltip lines an item uses, so that they are looked up again the next time they are requested.
+     *
+     * @param item the item whose displayed components have changed or that is going away
+     */
+    public void invalidate(EntityRef item) {
+        linesByItem.remove(item);
+    }
+
+    private static boolean isPrefabDescription(EquipmentArchetype archetype, String description) {
+        DisplayNameComponent d = archetype.getPrefab().getComponent(DisplayNameComponent.class);
+        return Objects.equals(d == null ? "" : d.description, description);
+    }
+
+    /**
+     * Identifies the tooltip of an item by its prefab and every value shown in it.
+     */
+    private static final class TooltipKey {
+        private final Prefab prefab;
+        private final String description;
+        private final boolean rare;
+        private final int level;
+        private final String type;
+        private final String location;
+        private final int attack;
+        private final int defense;
+        private final int speed;
+        private final int weight;
+        private final int hash;
+
+        private TooltipKey(Prefab prefab, String description, EquipmentItemComponent eqItem) {
+            this.prefab = prefab;
+            this.description = description;
+            this.rare = eqItem.quality == 5;
+            this.level = eqItem.level;
+            this.type = eqItem.type;
+            this.location = eqItem.location;
+            this.attack = eqItem.attack;
+            this.defense = eqItem.defense;
+            this.speed = eqItem.speed;
+            this.weight = eqItem.weight;
+            this.hash = Objects.hash(prefab, description, rare, level, type, location, attack, defense, speed, weight);
+        }
+
+        private List<TooltipLine> buildLines() {
+            List<TooltipLine> lines = new ArrayList<>(9);
+            lines.add(new TooltipLine(description));
+            lines.add(new TooltipLine(""));
+
+            if (rare) {
+                lines.add(new TooltipLine("Level " + level + " Rare " + type));
+            } else {
+                lines.add(new TooltipLine("Level " + level + " Common " + type));
+            }
+
+            lines.add(new TooltipLine("Equippable on " + location + "."));
+            lines.add(new TooltipLine("Physical Attack: " + attack));
+            lines.add(new TooltipLine("Physical Defense: " + defense));
+            lines.add(new TooltipLine("Speed: " + speed));
+            lines.add(new TooltipLine("Weight: " + weight));
+            return Collections.unmodifiableList(lines);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TooltipKey)) {
+                return false;
+            }
+            TooltipKey other = (TooltipKey) o;
+            return hash == other.hash && rare == other.rare && level == other.level && attack == other.attack
+                    && defense == other.defense && speed == other.speed && weight == other.weight
+                    && Objects.equals(prefab, other.prefab) && Objects.equals(description, other.description)
+                    && Objects.equals(type, other.type) && Objects.equals(location, other.location);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
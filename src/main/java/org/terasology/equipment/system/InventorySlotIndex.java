@@ -0,0 +1,160 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.equipment.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.module.inventory.components.InventoryComponent;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of which slots of an inventory are empty, and which slot holds each item, so that swapping equipment
+ * doesn't have to scan whole inventories to find a free slot or the slot of an item.
+ *
+ * An inventory is indexed the first time it is queried, and is then kept up to date from the inventory's slot change
+ * events. The index is rebuilt if the inventory's slot list is replaced or resized without such an event.
+ */
+public class InventorySlotIndex {
+    /** The index of every inventory that has been queried. */
+    private final Map<EntityRef, Slots> inventories = new HashMap<>();
+
+    /**
+     * Returns the slot of an inventory that holds the given item.
+     *
+     * @param inventory the inventory to look in
+     * @param item      the item to look for
+     * @return the slot holding the item, or -1 if the inventory doesn't hold it
+     */
+    public int getSlotWithItem(EntityRef inventory, EntityRef item) {
+        Slots slots = get(inventory);
+        if (slots == null) {
+            return -1;
+        }
+
+        Integer slot = slots.slotOfItem.get(item);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the first empty slot of an inventory.
+     *
+     * @param inventory the inventory to look in
+     * @return the first empty slot, or -1 if the inventory is full
+     */
+    public int findEmptySlot(EntityRef inventory) {
+        Slots slots = get(inventory);
+        return slots == null ? -1 : slots.empty.nextSetBit(0);
+    }
+
+    /**
+     * Returns how many slots of an inventory are empty.
+     *
+     * @param inventory the inventory to look in
+     * @return the number of empty slots
+     */
+    public int countEmptySlots(EntityRef inventory) {
+        Slots slots = get(inventory);
+        return slots == null ? 0 : slots.emptyCount;
+    }
+
+    /**
+     * Updates the index of an inventory after one of its slots has changed. Inventories that haven't been indexed yet
+     * are ignored.
+     *
+     * @param inventory the inventory whose slot has changed
+     * @param slot      the slot that has changed
+     * @param newItem   the item now held in the slot
+     */
+    public void onSlotChanged(EntityRef inventory, int slot, EntityRef newItem) {
+        Slots slots = inventories.get(inventory);
+        if (slots == null) {
+            return;
+        }
+        if (slot < 0 || slot >= slots.size) {
+            inventories.remove(inventory);
+            return;
+        }
+
+        EntityRef oldItem = slots.itemInSlot[slot];
+        if (oldItem != EntityRef.NULL) {
+            slots.slotOfItem.remove(oldItem, slot);
+        }
+        slots.set(slot, newItem);
+    }
+
+    /**
+     * Forgets the index of an inventory.
+     *
+     * @param inventory the inventory that is going away
+     */
+    public void evict(EntityRef inventory) {
+        inventories.remove(inventory);
+    }
+
+    private Slots get(EntityRef inventory) {
+        InventoryComponent inv = inventory.getComponent(InventoryComponent.class);
+        if (inv == null) {
+            inventories.remove(inventory);
+            return null;
+        }
+
+        Slots slots = inventories.get(inventory);
+        if (slots == null || slots.itemSlots != inv.itemSlots || slots.size != inv.itemSlots.size()) {
+            slots = new Slots(inv.itemSlots);
+            inventories.put(inventory, slots);
+        }
+        return slots;
+    }
+
+    /**
+     * The index of one inventory.
+     */
+    private static final class Slots {
+        /** The slot list this index was built from. */
+        private final List<EntityRef> itemSlots;
+        private final int size;
+
+        /** Set bits mark the empty slots. */
+        private final BitSet empty;
+        private int emptyCount;
+
+        private final EntityRef[] itemInSlot;
+        private final Map<EntityRef, Integer> slotOfItem = new HashMap<>();
+
+        private Slots(List<EntityRef> itemSlots) {
+            this.itemSlots = itemSlots;
+            this.size = itemSlots.size();
+            this.empty = new BitSet(size);
+            this.itemInSlot = new EntityRef[size];
+
+            for (int i = 0; i < size; i++) {
+                itemInSlot[i] = EntityRef.NULL;
+                empty.set(i);
+                emptyCount++;
+                set(i, itemSlots.get(i));
+            }
+        }
+
+        private void set(int slot, EntityRef item) {
+            boolean wasEmpty = empty.get(slot);
+            boolean isEmpty = item == null || item == EntityRef.NULL;
+
+            itemInSlot[slot] = isEmpty ? EntityRef.NULL : item;
+            if (isEmpty) {
+                empty.set(slot);
+            } else {
+                empty.clear(slot);
+                slotOfItem.put(item, slot);
+            }
+
+            if (wasEmpty && !isEmpty) {
+                emptyCount--;
+            } else if (!wasEmpty && isEmpty) {
+                emptyCount++;
+            }
+        }
+    }
+}
@@ -2,21 +2,20 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.equipment.ui;
 
-import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.logic.characters.CharacterComponent;
 import org.terasology.engine.logic.common.DisplayNameComponent;
 import org.terasology.module.inventory.components.InventoryComponent;
 import org.terasology.engine.logic.players.LocalPlayer;
 import org.terasology.engine.registry.CoreRegistry;
-import org.terasology.engine.registry.In;
 import org.terasology.engine.rendering.nui.BaseInteractionScreen;
 import org.terasology.module.inventory.ui.InventoryGrid;
 import org.terasology.equipment.component.EquipmentComponent;
 import org.terasology.equipment.component.EquipmentItemComponent;
 import org.terasology.equipment.component.EquipmentSlot;
+import org.terasology.equipment.event.EquipmentInventoryRequest;
 import org.terasology.nui.UIWidget;
-import org.terasology.nui.databinding.DefaultBinding;
+import org.terasology.nui.databinding.ReadOnlyBinding;
 import org.terasology.nui.layouts.ColumnLayout;
 import org.terasology.nui.widgets.UILabel;
 import org.terasology.physicalstats.component.PhysicalStatsComponent;
@@ -24,6 +23,7 @@ import org.terasology.physicalstats.component.PhysicalStatsModifierComponent;
 import org.terasology.physicalstats.component.PhysicalStatsModifiersListComponent;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -31,9 +31,6 @@ import java.util.List;
  * This class represents the Character Screen window, a screen that contains information about the character's inventory.
  */
 public class CharacterScreenWindow extends BaseInteractionScreen {
-    @In
-    private EntityManager entityManager;
-
     private InventoryGrid ingredientsInventory;
 
     private UILabel strLabel;
@@ -68,6 +65,15 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
     private float lastUpdate;
     private boolean hasSetLabels;
 
+    /** Whether the attribute labels need to be refreshed during the next update. */
+    private boolean attributesDirty;
+
+    /** The indices of the equipment slots whose labels need to be refreshed during the next update. */
+    private final BitSet dirtySlots = new BitSet();
+
+    /** The character's strength including modifiers, as last shown. Used for the derived attack stat. */
+    private int modifiedStrength;
+
     /**
      * Initializes the character screen
      */
@@ -110,35 +116,15 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
 
         EquipmentComponent eqC = player.getComponent(EquipmentComponent.class);
 
-        // In case the equipment inventory entity wasn't instantiated back in the EquipmentSystem, instantiate it here.
-        if (eqC.equipmentInventory == EntityRef.NULL) {
-            eqC.equipmentInventory = entityManager.create("Equipment:EquipmentInventory");
-            InventoryComponent inv = eqC.equipmentInventory.getComponent(InventoryComponent.class);
-
-            for (int i = 0; i < eqC.numberOfSlots; i++) {
-                inv.itemSlots.add(EntityRef.NULL);
+        // Follow the equipment inventory of the character, as switching loadouts replaces it, and it is only created
+        // once the screen is first opened.
+        playerEQInventory.bindTargetEntity(new ReadOnlyBinding<EntityRef>() {
+            @Override
+            public EntityRef get() {
+                EquipmentComponent eq = player.getComponent(EquipmentComponent.class);
+                return eq == null ? EntityRef.NULL : eq.equipmentInventory;
             }
-
-            // Save the equipment components.
-            eqC.equipmentInventory.saveComponent(inv);
-            player.saveComponent(eqC);
-
-        } else { // If the number of actual equipment inventory slots is lower than the intended number, create them here.
-            InventoryComponent inv = eqC.equipmentInventory.getComponent(InventoryComponent.class);
-
-            if (inv.itemSlots.size() < eqC.numberOfSlots) {
-                int oldSize = inv.itemSlots.size();
-                for (int i = 0; i < eqC.numberOfSlots - oldSize; i++) {
-                    inv.itemSlots.add(EntityRef.NULL);
-                }
-
-                // Save the equipment components.
-                eqC.equipmentInventory.saveComponent(inv);
-                player.saveComponent(eqC);
-            }
-        }
-
-        playerEQInventory.bindTargetEntity(new DefaultBinding<>(eqC.equipmentInventory));
+        });
         playerEQInventory.setCellOffset(0);
         playerEQInventory.setMaxCellCount(eqC.numberOfSlots);
 
@@ -195,17 +181,33 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
             super.onOpened();
         }
 
+        // The equipment inventory is only created when it is first needed, so ask for it if it doesn't exist yet, or
+        // doesn't have enough slots.
+        EquipmentComponent eq = characterEntity.getComponent(EquipmentComponent.class);
+        if (eq != null && needsEquipmentInventory(eq)) {
+            characterEntity.send(new EquipmentInventoryRequest());
+        }
+
         // Every time the character screen window is opened, update the stats.
         updateStats();
     }
 
+    private boolean needsEquipmentInventory(EquipmentComponent eq) {
+        if (eq.equipmentInventory == EntityRef.NULL) {
+            return true;
+        }
+        InventoryComponent inv = eq.equipmentInventory.getComponent(InventoryComponent.class);
+        return inv != null && inv.itemSlots.size() < eq.numberOfSlots;
+    }
+
     @Override
     protected void initializeWithInteractionTarget(final EntityRef screen) {
         updateStats();
     }
 
     /**
-     * Updates the character's stats every 30 seconds. Called every time the game updates.
+     * Updates the character's stats every 30 seconds, and refreshes whatever was marked dirty since the last frame.
+     * Called every time the game updates.
      *
      * @param delta the time since the last update
      */
@@ -218,6 +220,8 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
         if (lastUpdate >= 30.0) {
             updateAllStats();
             lastUpdate = 0f;
+        } else if (attributesDirty || !dirtySlots.isEmpty()) {
+            refreshDirty();
         }
     }
 
@@ -228,6 +232,32 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
         updateStats();
     }
 
+    /**
+     * Marks the character's attributes (and the stats derived from them) as changed. They are refreshed once, during
+     * the next update of this screen.
+     */
+    public void markAttributesDirty() {
+        attributesDirty = true;
+    }
+
+    /**
+     * Marks the labels of an equipment slot (and the stats derived from equipped items) as changed. They are
+     * refreshed once, during the next update of this screen.
+     *
+     * @param equipmentSlot the equipment slot whose contents have changed, or null if unknown
+     */
+    public void markSlotDirty(EquipmentSlot equipmentSlot) {
+        EquipmentComponent eq = player.getComponent(EquipmentComponent.class);
+        int index = (eq == null || equipmentSlot == null) ? -1 : eq.getSlotIndex(equipmentSlot.type);
+
+        if (index < 0) {
+            // The slot couldn't be found, so refresh all of them.
+            dirtySlots.set(0, Math.max(1, eq == null ? 0 : eq.equipmentSlots.size()));
+        } else {
+            dirtySlots.set(index);
+        }
+    }
+
     /**
      * Updates the character's stats.
      */
@@ -238,98 +268,141 @@ public class CharacterScreenWindow extends BaseInteractionScreen {
         }
 
         if (player.hasComponent(EquipmentComponent.class)) {
-            EquipmentComponent eq = player.getComponent(EquipmentComponent.class);
-            PhysicalStatsComponent phy = player.getComponent(PhysicalStatsComponent.class);
-            PhysicalStatsModifiersListComponent mods = player.getComponent(PhysicalStatsModifiersListComponent.class);
-
-            int strTemp = phy.strength;
-            int dexTemp = phy.dexterity;
-            int conTemp = phy.constitution;
-            int endTemp = phy.endurance;
-            int agiTemp = phy.agility;
-            int chaTemp = phy.charisma;
-            int lukTemp = phy.luck;
-
-            if (mods != null) {
-                for (PhysicalStatsModifierComponent mod : mods.modifiers.values()) {
-                    strTemp += mod.strength;
-                    dexTemp += mod.dexterity;
-                    conTemp += mod.constitution;
-                    endTemp += mod.endurance;
-                    agiTemp += mod.agility;
-                    chaTemp += mod.charisma;
-                    lukTemp += mod.luck;
-                }
+            attributesDirty = true;
+            dirtySlots.set(0, player.getComponent(EquipmentComponent.class).equipmentSlots.size());
+            refreshDirty();
+        }
+    }
+
+    /**
+     * Refreshes the labels of everything marked dirty, along with the derived stats.
+     */
+    private void refreshDirty() {
+        // Only update the stats if the player character entity actually exists.
+        if (player == null || player == EntityRef.NULL || player.getId() == 0 || eqSlotLabels == null) {
+            return;
+        }
+
+        EquipmentComponent eq = player.getComponent(EquipmentComponent.class);
+        PhysicalStatsComponent phy = player.getComponent(PhysicalStatsComponent.class);
+        if (eq == null || phy == null) {
+            return;
+        }
+
+        if (attributesDirty) {
+            updateAttributes(phy);
+            attributesDirty = false;
+        }
+
+        int c = 0; // Counter for storing which label in eqSlotLabels to access.
+        // Iterate through the list of equipment slots, only updating the labels of those marked dirty.
+        for (int i = 0; i < eq.equipmentSlots.size(); i++) {
+            EquipmentSlot equipmentSlot = eq.equipmentSlots.get(i);
+            if (dirtySlots.get(i)) {
+                updateSlotLabels(equipmentSlot, c);
             }
-            strLabel.setText("Strength: " + strTemp);
-            dexLabel.setText("Dexterity: " + dexTemp);
-            conLabel.setText("Constitution: " + conTemp);
-            endLabel.setText("Endurance: " + endTemp);
-            agiLabel.setText("Agility: " + agiTemp);
-            chaLabel.setText("Charisma: " + chaTemp);
-            lukLabel.setText("Luck: " + lukTemp);
-
-            strLabel.setText(strLabel.getText() + " (" + phy.strength + ")");
-            dexLabel.setText(dexLabel.getText() + " (" + phy.dexterity + ")");
-            conLabel.setText(conLabel.getText() + " (" + phy.constitution + ")");
-            endLabel.setText(endLabel.getText() + " (" + phy.endurance + ")");
-            agiLabel.setText(agiLabel.getText() + " (" + phy.agility + ")");
-            chaLabel.setText(chaLabel.getText() + " (" + phy.charisma + ")");
-            lukLabel.setText(lukLabel.getText() + " (" + phy.luck + ")");
-
-            // Calculating the derived stat values.
-            int defense = 0;
-            int thaumacity = 0;
-            int resistance = 0;
-
-            int phyAtkTotal = 1; // Due to how BeforeDamageEvent starts with 1 base damage, this must start with 1 too.
-            int phyDefTotal = 0;
-            int speedTotal = Math.round(phy.dexterity / 2f);
-
-            maxHealth.setText("Health: " + phy.constitution * 10);
-
-            int c = 0; // Counter for storing which label in eqSlotLabels to access.
-            // Iterate through the list of equipment slots.
-            for (int i = 0; (i < eq.equipmentSlots.size()); i++) {
-                // For each slot present in this type.
-                for (int j = 0; j < eq.equipmentSlots.get(i).numSlotsOfSameType; j++) {
-                    // If nothing's equipped in this slot, update the appropriate label.
-                    if (eq.equipmentSlots.get(i).itemRefs.get(j) == EntityRef.NULL) {
-
-                        if (eq.equipmentSlots.get(i).numSlotsOfSameType == 1) {
-                            eqSlotLabels.get(c).setText(eq.equipmentSlots.get(i).name + ": None");
-                        } else {
-                            eqSlotLabels.get(c).setText(eq.equipmentSlots.get(i).name + " #" + (j + 1) + ": None");
-                        }
-                    } else { // If something's equipped in this slot, update the appropriate label.
-                        if (eq.equipmentSlots.get(i).numSlotsOfSameType == 1) {
-                            eqSlotLabels.get(c).setText(eq.equipmentSlots.get(i).name + ": " +
-                                    eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(DisplayNameComponent.class).name);
-                        } else {
-                            eqSlotLabels.get(c).setText(eq.equipmentSlots.get(i).name + " #" + (j + 1) + ": " +
-                                    eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(DisplayNameComponent.class).name);
-                        }
-
-                        // Add the stat bonuses from the equipped item.
-                        phyAtkTotal +=
-                                eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(EquipmentItemComponent.class).attack;
-                        phyDefTotal +=
-                                eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(EquipmentItemComponent.class).defense;
-                        speedTotal +=
-                                eq.equipmentSlots.get(i).itemRefs.get(j).getComponent(EquipmentItemComponent.class).speed;
-                    }
-
-                    // As we are done with this equipment slot (and associated label), increment the counter.
-                    c++;
-                }
+            c += equipmentSlot.numSlotsOfSameType;
+        }
+        dirtySlots.clear();
+
+        updateDerivedStats(eq, phy);
+    }
+
+    /**
+     * Updates the labels of the character's attributes, including the bonuses of physical stat modifiers.
+     *
+     * @param phy the character's physical stats
+     */
+    private void updateAttributes(PhysicalStatsComponent phy) {
+        PhysicalStatsModifiersListComponent mods = player.getComponent(PhysicalStatsModifiersListComponent.class);
+
+        int strTemp = phy.strength;
+        int dexTemp = phy.dexterity;
+        int conTemp = phy.constitution;
+        int endTemp = phy.endurance;
+        int agiTemp = phy.agility;
+        int chaTemp = phy.charisma;
+        int lukTemp = phy.luck;
+
+        if (mods != null) {
+            for (PhysicalStatsModifierComponent mod : mods.modifiers.values()) {
+                strTemp += mod.strength;
+                dexTemp += mod.dexterity;
+                conTemp += mod.constitution;
+                endTemp += mod.endurance;
+                agiTemp += mod.agility;
+                chaTemp += mod.charisma;
+                lukTemp += mod.luck;
+            }
+        }
+        strLabel.setText("Strength: " + strTemp + " (" + phy.strength + ")");
+        dexLabel.setText("Dexterity: " + dexTemp + " (" + phy.dexterity + ")");
+        conLabel.setText("Constitution: " + conTemp + " (" + phy.constitution + ")");
+        endLabel.setText("Endurance: " + endTemp + " (" + phy.endurance + ")");
+        agiLabel.setText("Agility: " + agiTemp + " (" + phy.agility + ")");
+        chaLabel.setText("Charisma: " + chaTemp + " (" + phy.charisma + ")");
+        lukLabel.setText("Luck: " + lukTemp + " (" + phy.luck + ")");
+
+        modifiedStrength = strTemp;
+        maxHealth.setText("Health: " + phy.constitution * 10);
+    }
+
+    /**
+     * Updates the labels of one equipment slot.
+     *
+     * @param equipmentSlot the equipment slot
+     * @param firstLabel    the index in eqSlotLabels of the slot's first label
+     */
+    private void updateSlotLabels(EquipmentSlot equipmentSlot, int firstLabel) {
+        // For each slot present in this type.
+        for (int j = 0; j < equipmentSlot.numSlotsOfSameType && firstLabel + j < eqSlotLabels.size(); j++) {
+            String name = equipmentSlot.numSlotsOfSameType == 1 ? equipmentSlot.name
+                    : equipmentSlot.name + " #" + (j + 1);
+            EntityRef item = j < equipmentSlot.itemRefs.size() ? equipmentSlot.itemRefs.get(j) : EntityRef.NULL;
+
+            // Show whatever is equipped in this slot, if anything.
+            if (item == EntityRef.NULL) {
+                eqSlotLabels.get(firstLabel + j).setText(name + ": None");
+            } else {
+                eqSlotLabels.get(firstLabel + j).setText(name + ": "
+                        + item.getComponent(DisplayNameComponent.class).name);
             }
+        }
+    }
 
-            // Update the labels of the derived stats.
-            physicalAttackPower.setText("Physical Attack: " + (phyAtkTotal + (strTemp / 2)));
-            physicalDefensePower.setText("Physical Defense: " + (phyDefTotal + (defense / 2)));
-            magicalAttackPower.setText("Magic Attack: " + (0 + (thaumacity / 2)));
-            magicalDefensePower.setText("Magic Defense: " + (0 + (resistance / 2)));
-            speedPower.setText("Speed: " + speedTotal);
+    /**
+     * Updates the labels of the stats derived from the character's attributes and equipped items.
+     *
+     * @param eq  the character's equipment
+     * @param phy the character's physical stats
+     */
+    private void updateDerivedStats(EquipmentComponent eq, PhysicalStatsComponent phy) {
+        // Calculating the derived stat values.
+        int defense = 0;
+        int thaumacity = 0;
+        int resistance = 0;
+
+        int phyAtkTotal = 1; // Due to how BeforeDamageEvent starts with 1 base damage, this must start with 1 too.
+        int phyDefTotal = 0;
+        int speedTotal = Math.round(phy.dexterity / 2f);
+
+        // Add the stat bonuses from the equipped items.
+        for (EquipmentSlot equipmentSlot : eq.equipmentSlots) {
+            for (EntityRef item : equipmentSlot.itemRefs) {
+                if (item != EntityRef.NULL) {
+                    EquipmentItemComponent eqItem = item.getComponent(EquipmentItemComponent.class);
+                    phyAtkTotal += eqItem.attack;
+                    phyDefTotal += eqItem.defense;
+                    speedTotal += eqItem.speed;
+                }
+            }
         }
+
+        // Update the labels of the derived stats.
+        physicalAttackPower.setText("Physical Attack: " + (phyAtkTotal + (modifiedStrength / 2)));
+        physicalDefensePower.setText("Physical Defense: " + (phyDefTotal + (defense / 2)));
+        magicalAttackPower.setText("Magic Attack: " + (0 + (thaumacity / 2)));
+        magicalDefensePower.setText("Magic Defense: " + (0 + (resistance / 2)));
+        speedPower.setText("Speed: " + speedTotal);
     }
 }